@@ -0,0 +1,65 @@
+#!/usr/bin/env python3
+"""Долгоживущий процесс LLL-редукции для пула внешних утилит.
+
+Запрос - матрица в формате fplll, за которой следует строка END. Ответ - редуцированная
+матрица в том же формате и строка END. Если установлен fpylll, редукция выполняется внутри
+процесса; иначе на каждую задачу вызывается утилита fplll, и процесс экономит только запуск
+интерпретатора.
+"""
+
+import subprocess
+import sys
+
+try:
+    from fpylll import LLL, IntegerMatrix
+except ImportError:
+    LLL = None
+
+
+def parse_matrix(text):
+    rows = []
+
+    for line in text.splitlines():
+        numbers = line.replace("[", " ").replace("]", " ").split()
+
+        if numbers:
+            rows.append([int(number) for number in numbers])
+
+    return rows
+
+
+def reduce(text):
+    if LLL is None:
+        result = subprocess.run(["fplll", "-a", "lll"], input=text, capture_output=True,
+                                text=True, check=True)
+        return result.stdout
+
+    matrix = IntegerMatrix.from_matrix(parse_matrix(text))
+    LLL.reduction(matrix)
+    rows = ["[" + " ".join(str(matrix[i, j]) for j in range(matrix.ncols)) + "]"
+            for i in range(matrix.nrows)]
+    return "[" + "\n".join(rows) + "]\n"
+
+
+def main():
+    request = []
+
+    for line in sys.stdin:
+        line = line.rstrip("\n")
+
+        if line != "END":
+            request.append(line)
+            continue
+
+        try:
+            sys.stdout.write(reduce("\n".join(request) + "\n"))
+        except Exception as error:  # ошибка задачи не должна останавливать процесс
+            sys.stdout.write("ERROR " + str(error).replace("\n", " ") + "\n")
+
+        sys.stdout.write("END\n")
+        sys.stdout.flush()
+        request = []
+
+
+if __name__ == "__main__":
+    main()
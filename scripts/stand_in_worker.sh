@@ -0,0 +1,27 @@
+#!/bin/sh
+# Заглушка долгоживущего процесса внешней утилиты для проверки пула без fplll и Sage.
+#
+# Протокол тот же, что у fplll_worker.py и sage_worker.sage: запрос заканчивается строкой END,
+# ответ - тоже. Заглушка возвращает запрос без изменений (для fplll это тождественная
+# "редукция"). Запрос из одной строки CRASH завершает процесс без ответа, FAIL возвращает
+# ошибку задачи, а SLEEP отвечает через минуту - так проверяются перезапуск упавшего процесса,
+# передача ошибок и прерывание задачи.
+
+request=$(mktemp)
+trap 'rm -f "$request"' EXIT
+
+while IFS= read -r line; do
+  if [ "$line" != "END" ]; then
+    printf '%s\n' "$line" >> "$request"
+    continue
+  fi
+
+  case "$(head -c 7 "$request")" in
+    CRASH) exit 1 ;;
+    FAIL) printf 'ERROR заглушка вернула ошибку\nEND\n' ;;
+    SLEEP) sleep 60; cat "$request"; printf 'END\n' ;;
+    *) cat "$request"; printf 'END\n' ;;
+  esac
+
+  : > "$request"
+done
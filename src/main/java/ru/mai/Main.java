@@ -1,57 +1,311 @@
 package ru.mai;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import ru.mai.factorization.RSALatticeFactorization;
+import ru.mai.factorization.batch.BatchFactorization;
+import ru.mai.factorization.batch.FactorizationDaemon;
+import ru.mai.factorization.batch.StepwiseFactorization;
+import ru.mai.factorization.batch.ParameterRace;
 import ru.mai.factorization.dividers.Dividers;
+import ru.mai.factorization.lattice.LatticeShape;
+import ru.mai.factorization.lattice.PreparedLattice;
+import ru.mai.factorization.reduction.LatticeReducer;
+import ru.mai.factorization.reduction.impl.CheckpointReducer;
+import ru.mai.factorization.reduction.impl.FplllReducer;
+import ru.mai.factorization.reduction.impl.LLLReducer;
+import ru.mai.factorization.solver.RootSolver;
+import ru.mai.factorization.solver.impl.ResultantRootSolver;
+import ru.mai.factorization.solver.impl.SageRootSolver;
+import ru.mai.factorization.solver.impl.SubsetRootSolver;
+import ru.mai.factorization.worker.ToolWorker;
+import ru.mai.factorization.worker.impl.WorkerPool;
 
 public class Main {
 
   public static void main(String[] args) throws IOException, InterruptedException {
     Map<String, String> params = parseArgs(args);
+    boolean auto = Boolean.parseBoolean(params.getOrDefault("auto", "false"));
+    boolean prune = Boolean.parseBoolean(params.getOrDefault("prune", "false"));
+    String reducerName = params.getOrDefault("reducer", "lll");
+    ToolWorker fplllWorker = toolWorker(params, "fplll-worker");
+    LatticeReducer reducer = "fplll".equals(reducerName)
+        ? new FplllReducer(fplllWorker)
+        : new LLLReducer();
+    if (params.containsKey("checkpoint-dir")) {
+      reducer = new CheckpointReducer(reducer, Path.of(params.get("checkpoint-dir")));
+    }
+
+    String solverName = params.getOrDefault("solver", "resultant");
+    ToolWorker sageWorker = toolWorker(params, "sage-worker");
+    RootSolver solver = "sage".equals(solverName)
+        ? new SageRootSolver(sageWorker)
+        : new ResultantRootSolver();
+
+    if (params.containsKey("subsets")) {
+      solver = new SubsetRootSolver(solver, Integer.parseInt(params.get("subsets")), 3,
+          workers(params));
+    }
+
+    if (params.containsKey("batch")) {
+      runBatch(params, auto, prune, reducer, solver);
+      return;
+    }
+
+    if (params.containsKey("daemon")) {
+      runDaemon(params, auto, prune, reducer, solver);
+      return;
+    }
+
+    if (params.containsKey("steps")) {
+      runSteps(params, auto, prune, reducer, solver);
+      return;
+    }
 
     int n = Integer.parseInt(params.get("n"));
-    int m = Integer.parseInt(params.get("m"));
-    int t = Integer.parseInt(params.get("t"));
     BigInteger e = new BigInteger(params.get("e"));
     BigInteger N = new BigInteger(params.get("N"));
     BigInteger d0 = new BigInteger(params.get("d0"));
     BigInteger M = new BigInteger(params.get("M"));
     BigDecimal delta = new BigDecimal(params.get("delta"));
 
+    if (params.containsKey("race")) {
+      runRace(params, n, N, e, d0, M, delta, prune, reducer, solver);
+      return;
+    }
+
+    int m;
+    int t;
+
+    if (auto) {
+      LatticeShape shape = RSALatticeFactorization.tune(n, N, e, M, delta);
+
+      if (shape == null) {
+        System.out.println("Не удалось подобрать параметры решетки, факторизация невозможна");
+        return;
+      }
+
+      m = shape.m();
+      t = shape.t();
+    } else {
+      m = Integer.parseInt(params.get("m"));
+      t = Integer.parseInt(params.get("t"));
+    }
     System.out.println("Запущена факторизация со следующими параметрами:");
-    System.out.println("Параметры редукции решетки: m=" + m + ", t=" + t);
+    System.out.println("Параметры редукции решетки: m=" + m + ", t=" + t
+        + (auto ? " (подобраны автоматически)" : ""));
     System.out.println("Открытая экспонента: e=" + e);
     System.out.println("Модуль RSA: N=" + N);
     System.out.println("Известные младшие биты: d0=" + d0);
     System.out.println("Количество известных младших бит: M=2^s=" + M);
     System.out.println("Приближение d относительно модуля RSA N: delta=" + delta);
+    System.out.println("Редукция решетки: " + reducerName);
+    System.out.println("Поиск корня: " + solverName);
+    System.out.println("Удаление бесполезных сдвигов: " + (prune ? "да" : "нет"));
 
     long begin = System.currentTimeMillis();
-    Dividers result = RSALatticeFactorization.factorization(n, m, t, N, e, d0, M, delta);
+    PreparedLattice prepared = RSALatticeFactorization.prepare(n, m, t, N, e, d0, M, delta, prune);
+    Dividers result = prepared == null
+        ? null
+        : RSALatticeFactorization.solve(prepared, reducer, solver);
     long end = System.currentTimeMillis();
 
     System.out.println("Факторизация выполнилась за: " + (((double) (end - begin)) / 1000) + "с");
 
-    if (result == null) {
+    if (prepared == null) {
       System.out.println("Факторизация невозможна, не выполнены условия");
+    } else if (result == null) {
+      System.out.println("Корень не найден: короткие векторы решетки не дали делителей N");
     } else {
       System.out.println("Результаты факторизации: {p=" + result.p() + ", q=" + result.q() + "}");
     }
   }
 
+  /**
+   * Пул долгоживущих процессов внешней утилиты, если задана команда их запуска. Процессы
+   * останавливаются при завершении JVM, в том числе по сигналу.
+   */
+  private static ToolWorker toolWorker(Map<String, String> params, String name) {
+    String command = params.get(name);
+
+    if (command == null) {
+      return null;
+    }
+
+    int size = Integer.parseInt(params.getOrDefault("tool-workers", "1"));
+    WorkerPool pool = new WorkerPool(Arrays.asList(command.trim().split("\\s+")), size);
+    Runtime.getRuntime().addShutdownHook(new Thread(pool::close));
+
+    return pool;
+  }
+
+  private static void runBatch(
+      Map<String, String> params,
+      boolean auto,
+      boolean prune,
+      LatticeReducer reducer,
+      RootSolver solver) throws IOException, InterruptedException {
+    Path input = Path.of(params.get("batch"));
+    int workers = workers(params);
+    Map<String, String> defaults = defaults(params, auto);
+    boolean csv = input.getFileName().toString().toLowerCase().endsWith(".csv");
+    String output = params.get("output");
+
+    try (BatchFactorization batch = new BatchFactorization(workers, reducer, solver, prune);
+        BufferedReader reader = Files.newBufferedReader(input);
+        Writer writer = output == null
+            ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+            : Files.newBufferedWriter(Path.of(output))) {
+      batch.run(reader, csv, defaults, writer);
+    }
+  }
+
+  private static void runDaemon(
+      Map<String, String> params,
+      boolean auto,
+      boolean prune,
+      LatticeReducer reducer,
+      RootSolver solver) throws IOException {
+    String address = params.get("daemon");
+
+    try (BatchFactorization batch =
+        new BatchFactorization(workers(params), reducer, solver, prune);
+        FactorizationDaemon daemon = address.chars().allMatch(Character::isDigit)
+            ? FactorizationDaemon.tcp(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address)),
+            batch, defaults(params, auto))
+            : FactorizationDaemon.unix(Path.of(address), batch, defaults(params, auto))) {
+      System.out.println("Демон факторизации запущен: " + daemon.getAddress());
+      daemon.serve();
+    }
+  }
+
+  private static void runRace(
+      Map<String, String> params,
+      int n,
+      BigInteger N,
+      BigInteger e,
+      BigInteger d0,
+      BigInteger M,
+      BigDecimal delta,
+      boolean prune,
+      LatticeReducer reducer,
+      RootSolver solver) throws InterruptedException {
+    int workers = workers(params);
+    String race = params.get("race");
+    List<LatticeShape> shapes = "true".equals(race)
+        ? RSALatticeFactorization.feasibleShapes(n, N, e, M, delta, workers)
+        : Arrays.stream(race.split(","))
+            .map(pair -> pair.split(":"))
+            .map(pair -> new LatticeShape(n, Integer.parseInt(pair[0]), Integer.parseInt(pair[1])))
+            .toList();
+
+    System.out.println("Гонка параметров решетки: " + shapes);
+
+    long begin = System.currentTimeMillis();
+    ParameterRace.Result result = new ParameterRace(workers, reducer, solver, prune)
+        .run(n, shapes, N, e, d0, M, delta);
+    long end = System.currentTimeMillis();
+
+    System.out.println("Факторизация выполнилась за: " + (((double) (end - begin)) / 1000) + "с");
+
+    if (result == null) {
+      System.out.println("Ни одна из форм решетки не дала делителей N");
+    } else {
+      System.out.println("Победила форма решетки: " + result.shape());
+      System.out.println("Результаты факторизации: {p=" + result.dividers().p()
+          + ", q=" + result.dividers().q() + "}");
+    }
+  }
+
+  /**
+   * Последовательность шагов из файла: в каждой строке d0 и M через пробел, пустые строки и
+   * строки с # пропускаются.
+   */
+  private static void runSteps(
+      Map<String, String> params,
+      boolean auto,
+      boolean prune,
+      LatticeReducer reducer,
+      RootSolver solver) throws IOException, InterruptedException {
+    int n = Integer.parseInt(params.get("n"));
+    LatticeShape shape = auto
+        ? null
+        : new LatticeShape(n, Integer.parseInt(params.get("m")), Integer.parseInt(params.get("t")));
+    StepwiseFactorization steps = new StepwiseFactorization(
+        n,
+        new BigInteger(params.get("N")),
+        new BigInteger(params.get("e")),
+        new BigDecimal(params.get("delta")),
+        shape,
+        reducer,
+        solver,
+        prune);
+
+    for (String line : Files.readAllLines(Path.of(params.get("steps")))) {
+      String trimmed = line.trim();
+
+      if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+        continue;
+      }
+
+      String[] values = trimmed.split("\\s+");
+      BigInteger M = new BigInteger(values[1]);
+
+      long begin = System.currentTimeMillis();
+      StepwiseFactorization.Result result = steps.update(new BigInteger(values[0]), M);
+      long end = System.currentTimeMillis();
+
+      System.out.println("M=2^" + (M.bitLength() - 1) + ", форма решетки: " + result.shape()
+          + ", время: " + (((double) (end - begin)) / 1000) + "с");
+
+      if (result.dividers() != null) {
+        System.out.println("Результаты факторизации: {p=" + result.dividers().p()
+            + ", q=" + result.dividers().q() + "}" + (result.reused() ? " (найдены ранее)" : ""));
+      }
+    }
+  }
+
+  private static int workers(Map<String, String> params) {
+    return Integer.parseInt(params.getOrDefault(
+        "workers", String.valueOf(Runtime.getRuntime().availableProcessors())));
+  }
+
+  /**
+   * Параметры командной строки как значения по умолчанию для задач. При --auto m и t не
+   * передаются, чтобы задачи без m и t подбирали их сами.
+   */
+  private static Map<String, String> defaults(Map<String, String> params, boolean auto) {
+    Map<String, String> defaults = new HashMap<>(params);
+
+    if (auto) {
+      defaults.remove("m");
+      defaults.remove("t");
+    }
+
+    return defaults;
+  }
+
   private static Map<String, String> parseArgs(String[] args) {
     Map<String, String> map = new HashMap<>();
 
     for (String arg : args) {
       if (arg.startsWith("--")) {
         String[] parts = arg.substring(2).split("=", 2);
-        if (parts.length == 2) {
-          map.put(parts[0], parts[1]);
-        }
+        map.put(parts[0], parts.length == 2 ? parts[1] : "true");
       }
     }
 
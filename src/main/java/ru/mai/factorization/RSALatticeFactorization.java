@@ -1,31 +1,34 @@
 package ru.mai.factorization;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import ru.mai.factorization.comparator.IndexTripleEntryComparator;
-import ru.mai.factorization.comparator.MonomialComparator;
+import java.util.stream.IntStream;
 import ru.mai.factorization.monomial.Monomial;
+import ru.mai.factorization.polynomial.KroneckerSubstitution;
 import ru.mai.factorization.polynomial.MultivariatePolynomial;
+import ru.mai.factorization.polynomial.PackedTermMap;
+import ru.mai.factorization.reduction.LatticeReducer;
+import ru.mai.factorization.reduction.StreamingLatticeReducer;
+import ru.mai.factorization.reduction.impl.LLLReducer;
+import ru.mai.factorization.solver.RootSolver;
+import ru.mai.factorization.solver.impl.ResultantRootSolver;
 import ru.mai.factorization.dividers.Dividers;
+import ru.mai.factorization.lattice.CoefficientReduction;
+import ru.mai.factorization.lattice.LatticePlan;
+import ru.mai.factorization.lattice.LatticeShape;
+import ru.mai.factorization.lattice.LatticeTemplate;
+import ru.mai.factorization.lattice.PreparedLattice;
+import ru.mai.factorization.lattice.ScaledLattice;
+import ru.mai.factorization.lattice.ShortVectors;
 import ru.mai.factorization.utils.FactorizationUtils;
-import ru.mai.factorization.tuple.IndexTriple;
 import ru.mai.factorization.utils.Polynomial;
 
 /**
@@ -33,6 +36,10 @@ import ru.mai.factorization.utils.Polynomial;
  */
 public class RSALatticeFactorization {
 
+  private static final Logger LOGGER = System.getLogger(RSALatticeFactorization.class.getName());
+
+  private static final int MAX_TUNED_M = 16;
+
   /**
    * Основной метод для факторизации.
    *
@@ -56,9 +63,216 @@ public class RSALatticeFactorization {
       BigInteger d0,
       BigInteger M,
       BigDecimal delta) throws IOException, InterruptedException {
+    return factorization(n, m, t, N, e, d0, M, delta, new LLLReducer(), new ResultantRootSolver());
+  }
+
+  /**
+   * Основной метод для факторизации с заданными этапами редукции решетки и поиска корня.
+   *
+   * @param n       параметр RSA
+   * @param m       параметр решетки
+   * @param t       параметр решетки
+   * @param N       параметр RSA
+   * @param e       параметр RSA
+   * @param d0      параметр RSA
+   * @param M       число известных бит в виде 2^s
+   * @param delta   приближение d относительно N
+   * @param reducer редукция решетки
+   * @param solver  поиск корня y = p + q
+   * @throws IOException          исключение при работе с файлами
+   * @throws InterruptedException исключение при запуске процесса
+   */
+  public static Dividers factorization(
+      int n,
+      int m,
+      int t,
+      BigInteger N,
+      BigInteger e,
+      BigInteger d0,
+      BigInteger M,
+      BigDecimal delta,
+      LatticeReducer reducer,
+      RootSolver solver) throws IOException, InterruptedException {
+    PreparedLattice prepared = prepare(n, m, t, N, e, d0, M, delta);
+    return prepared == null ? null : solve(prepared, reducer, solver);
+  }
+
+  /**
+   * Подготовка решетки по параметрам RSA: проверка условий и построение степеней F^k.
+   *
+   * @param n     параметр RSA
+   * @param m     параметр решетки
+   * @param t     параметр решетки
+   * @param N     параметр RSA
+   * @param e     параметр RSA
+   * @param d0    параметр RSA
+   * @param M     число известных бит в виде 2^s
+   * @param delta приближение d относительно N
+   * @return подготовленная решетка или null, если условия факторизации не выполнены
+   */
+  public static PreparedLattice prepare(
+      int n,
+      int m,
+      int t,
+      BigInteger N,
+      BigInteger e,
+      BigInteger d0,
+      BigInteger M,
+      BigDecimal delta) {
+    return prepare(n, m, t, N, e, d0, M, delta, false);
+  }
+
+  /**
+   * Подготовка решетки по параметрам RSA с возможным удалением бесполезных сдвигов.
+   *
+   * @param n     параметр RSA
+   * @param m     параметр решетки
+   * @param t     параметр решетки
+   * @param N     параметр RSA
+   * @param e     параметр RSA
+   * @param d0    параметр RSA
+   * @param M     число известных бит в виде 2^s
+   * @param delta приближение d относительно N
+   * @param prune удалить сдвиги, диагональ которых больше e^m, см. {@link LatticeTemplate#prune}
+   * @return подготовленная решетка или null, если условия факторизации не выполнены
+   */
+  public static PreparedLattice prepare(
+      int n,
+      int m,
+      int t,
+      BigInteger N,
+      BigInteger e,
+      BigInteger d0,
+      BigInteger M,
+      BigDecimal delta,
+      boolean prune) {
     BigDecimal alpha = FactorizationUtils.log(new BigDecimal(N), new BigDecimal(e));
     BigDecimal mu = FactorizationUtils.log(new BigDecimal(N), new BigDecimal(M));
 
+    if (!FactorizationUtils.canFactorize(n, alpha, mu, delta)) {
+      return null;
+    }
+
+    BigInteger[] bounds = bounds(n, N, e, delta);
+
+    return prepare(
+        N,
+        e.multiply(d0).negate().add(BigInteger.ONE),
+        e.multiply(M),
+        n,
+        m,
+        t,
+        bounds[0],
+        bounds[1],
+        bounds[2],
+        prune
+    );
+  }
+
+  /**
+   * Подбор параметров решетки: наименьшая по размерности решетка, для которой выполнено условие
+   * det^(1/w) < e^m без допуска. Определитель каждой формы вычисляется точно по диагонали, без
+   * построения коэффициентов.
+   *
+   * @param n     параметр RSA
+   * @param N     параметр RSA
+   * @param e     параметр RSA
+   * @param M     число известных бит в виде 2^s
+   * @param delta приближение d относительно N
+   * @return форма решетки или null, если подходящей формы нет
+   */
+  public static LatticeShape tune(
+      int n,
+      BigInteger N,
+      BigInteger e,
+      BigInteger M,
+      BigDecimal delta) {
+    BigDecimal alpha = FactorizationUtils.log(new BigDecimal(N), new BigDecimal(e));
+    BigDecimal mu = FactorizationUtils.log(new BigDecimal(N), new BigDecimal(M));
+
+    if (!FactorizationUtils.canFactorize(n, alpha, mu, delta)) {
+      return null;
+    }
+
+    BigInteger[] bounds = bounds(n, N, e, delta);
+    BigInteger modulus = e.multiply(M);
+
+    LatticeShape best = null;
+    double bestMargin = 0;
+
+    for (LatticeShape shape : candidateShapes(n)) {
+      if (best != null && shape.dimension() > best.dimension()) {
+        break;
+      }
+
+      LatticePlan plan = plan(modulus, n, shape.m(), shape.t(), bounds[0], bounds[1], bounds[2]);
+
+      if (plan.isFeasible(0)
+          && (best == null || plan.marginBits() > bestMargin)) {
+        best = shape;
+        bestMargin = plan.marginBits();
+      }
+    }
+
+    return best;
+  }
+
+  /**
+   * Формы решетки, для которых выполнено условие det^(1/w) < e^m без допуска, как при
+   * {@link #tune}, в порядке возрастания размерности.
+   *
+   * @param n     параметр RSA
+   * @param N     параметр RSA
+   * @param e     параметр RSA
+   * @param M     число известных бит в виде 2^s
+   * @param delta приближение d относительно N
+   * @param limit максимальное число форм
+   * @return формы решетки, пустой список, если условия факторизации не выполнены
+   */
+  public static List<LatticeShape> feasibleShapes(
+      int n,
+      BigInteger N,
+      BigInteger e,
+      BigInteger M,
+      BigDecimal delta,
+      int limit) {
+    BigDecimal alpha = FactorizationUtils.log(new BigDecimal(N), new BigDecimal(e));
+    BigDecimal mu = FactorizationUtils.log(new BigDecimal(N), new BigDecimal(M));
+
+    if (!FactorizationUtils.canFactorize(n, alpha, mu, delta)) {
+      return List.of();
+    }
+
+    BigInteger[] bounds = bounds(n, N, e, delta);
+    BigInteger modulus = e.multiply(M);
+
+    return candidateShapes(n).stream()
+        .filter(shape -> plan(modulus, n, shape.m(), shape.t(), bounds[0], bounds[1], bounds[2])
+            .isFeasible(0))
+        .limit(limit)
+        .toList();
+  }
+
+  private static List<LatticeShape> candidateShapes(int n) {
+    return IntStream.rangeClosed(1, MAX_TUNED_M)
+        .boxed()
+        .flatMap(m -> IntStream.rangeClosed(0, m).mapToObj(t -> new LatticeShape(n, m, t)))
+        .sorted(Comparator.comparingInt(LatticeShape::dimension))
+        .toList();
+  }
+
+  /**
+   * Границы корня X, Y и Z = XY^(n-1).
+   *
+   * @param n     параметр RSA
+   * @param N     параметр RSA
+   * @param e     параметр RSA
+   * @param delta приближение d относительно N
+   * @return массив {X, Y, Z}
+   */
+  private static BigInteger[] bounds(int n, BigInteger N, BigInteger e, BigDecimal delta) {
+    BigDecimal alpha = FactorizationUtils.log(new BigDecimal(N), new BigDecimal(e));
+
     BigDecimal xScale = alpha.add(delta).subtract(new BigDecimal(n)).add(BigDecimal.ONE);
     BigDecimal yScale = BigDecimal.valueOf(0.5);
 
@@ -66,21 +280,7 @@ public class RSALatticeFactorization {
     BigInteger Y = FactorizationUtils.scale(N, yScale).multiply(BigInteger.valueOf(3));
     BigInteger Z = X.multiply(Y.pow(n - 1));
 
-    if (FactorizationUtils.canFactorize(n, alpha, mu, delta)) {
-      return factorization(
-          N,
-          e.multiply(d0).negate().add(BigInteger.ONE),
-          e.multiply(M),
-          n,
-          m,
-          t,
-          X,
-          Y,
-          Z
-      );
-    }
-
-    return null;
+    return new BigInteger[]{X, Y, Z};
   }
 
   /**
@@ -96,7 +296,7 @@ public class RSALatticeFactorization {
    * @param Y масштабирование по Y. определяется экспериментально.
    * @param Z масштабирование по Z. определяется экспериментально.
    * @throws IOException          исключение при работе с файлами
-   * @throws InterruptedException исключение при работе с утилитой fplll
+   * @throws InterruptedException исключение при работе с внешними утилитами
    */
   public static Dividers factorization(
       BigInteger N,
@@ -108,232 +308,260 @@ public class RSALatticeFactorization {
       BigInteger X,
       BigInteger Y,
       BigInteger Z) throws IOException, InterruptedException {
-    int r = n - 1;
-    BigInteger[] H = Polynomial.phi(n, N);
-
-    Map<IndexTriple, MultivariatePolynomial> Gs = generateG(H, c, e, m, t, r);
-
-    List<Monomial> basis = generateCustomMonomialBasis(Gs);
-    BigInteger[][] matrix = polynomialsToMatrix(Gs, basis, X, Y, Z);
-
-    File latticeFile = new File("lattice.input");
-    File reducedFile = new File("reduced.output");
-
-    writeMatrixForFplll(matrix, latticeFile);
-    runFplll(latticeFile, reducedFile);
-
-    List<BigInteger[]> vectors = readFplllOutput(reducedFile);
-    List<MultivariatePolynomial> polys = new ArrayList<>();
-
-    for (BigInteger[] vector : vectors) {
-      polys.add(vectorToPolynomialUnscale(vector, basis, X, Y, Z));
-    }
-
-    exportPolynomialsToSage(polys, r, new File("solve.sage"));
-
-    File sageScript = new File("solve.sage");
-    List<String> sageOutput = runSage(sageScript);
-
-    BigInteger sum = extractResponse(sageOutput.get(1));
-
-    return getDividers(sum, N);
+    return factorization(N, c, e, n, m, t, X, Y, Z, new LLLReducer(), new ResultantRootSolver());
   }
 
   /**
-   * Генерация полиномов G(x,y,z).
+   * Факторизация RSA с заданными этапами редукции решетки и поиска корня.
    *
-   * @param H полином H(y)
-   * @param c свободный член уравнения f(x,y,z) = xH(y) + c
-   * @param e модуль уравнения f(x,y,z) = xH(y) + c = 0 (mod e)
-   * @param m параметр решетки
-   * @param t параметр решетки
-   * @param r параметр решетки
-   * @return сгенерированные полиномы G(x,y,z)
+   * @param N       модуль RSA
+   * @param c       свободный член уравнения f(x,y) = xH(y) + c
+   * @param e       модуль уравнения f(x,y) = xH(y) + c = 0 (mod e)
+   * @param n       произвольно выбранная константа (размер полиномов) из публичного ключа
+   * @param m       параметр решетки. максимальная степень базового многочлена F(x, y, z)
+   * @param t       параметр решетки. максимальная степень дополнительной переменной y
+   * @param X       масштабирование по X. определяется экспериментально.
+   * @param Y       масштабирование по Y. определяется экспериментально.
+   * @param Z       масштабирование по Z. определяется экспериментально.
+   * @param reducer редукция решетки
+   * @param solver  поиск корня y = p + q
+   * @throws IOException          исключение при работе с файлами
+   * @throws InterruptedException исключение при работе с внешними утилитами
    */
-  private static Map<IndexTriple, MultivariatePolynomial> generateG(
-      BigInteger[] H,
+  public static Dividers factorization(
+      BigInteger N,
       BigInteger c,
       BigInteger e,
+      int n,
       int m,
       int t,
-      int r) {
-    Map<IndexTriple, MultivariatePolynomial> result = new HashMap<>();
-    MultivariatePolynomial F = Polynomial.buildF(H, c);
-
-    for (int k = 0; k <= m; k++) {
-      BigInteger scale = e.pow(m - k);
-      MultivariatePolynomial Fk = F.pow(k).multiply(scale);
-
-      for (int j = 0; j <= t; j++) {
-        result.put(new IndexTriple(k, 0, j),
-            Polynomial.reduceXYrToZ(Fk.multiplyMonomial(0, j, 0), r));
-      }
-
-      for (int i = 1; i <= m - k; i++) {
-        for (int j = 0; j <= r - 1; j++) {
-          result.put(new IndexTriple(k, i, j),
-              Polynomial.reduceXYrToZ(Fk.multiplyMonomial(i, j, 0), r));
-        }
-      }
-    }
-
-    return result.entrySet()
-        .stream()
-        .sorted(new IndexTripleEntryComparator())
-        .collect(Collectors.toMap(
-            Entry::getKey,
-            Entry::getValue,
-            (a, b) -> a,
-            LinkedHashMap::new
-        ));
+      BigInteger X,
+      BigInteger Y,
+      BigInteger Z,
+      LatticeReducer reducer,
+      RootSolver solver) throws IOException, InterruptedException {
+    PreparedLattice prepared = prepare(N, c, e, n, m, t, X, Y, Z);
+    return prepared == null ? null : solve(prepared, reducer, solver);
   }
 
   /**
-   * Генерация базиса для решетки.
+   * Подготовка решетки: план, проверка условия на определитель и построение степеней F^k.
+   * Матрица при этом не строится.
    *
-   * @param Gs сгенерированные полиномы G(Xx, Yy, Zz)
-   * @return базис решетки
+   * @param N модуль RSA
+   * @param c свободный член уравнения f(x,y) = xH(y) + c
+   * @param e модуль уравнения f(x,y) = xH(y) + c = 0 (mod e)
+   * @param n размер полиномов из публичного ключа
+   * @param m параметр решетки
+   * @param t параметр решетки
+   * @param X масштабирование по X
+   * @param Y масштабирование по Y
+   * @param Z масштабирование по Z
+   * @return подготовленная решетка или null, если условие на определитель не выполнено
    */
-  private static List<Monomial> generateCustomMonomialBasis(
-      Map<IndexTriple, MultivariatePolynomial> Gs) {
-    return Gs.values().stream()
-        .flatMap(p -> p.getTerms().keySet().stream())
-        .distinct()
-        .sorted(new MonomialComparator())
-        .toList();
+  public static PreparedLattice prepare(
+      BigInteger N,
+      BigInteger c,
+      BigInteger e,
+      int n,
+      int m,
+      int t,
+      BigInteger X,
+      BigInteger Y,
+      BigInteger Z) {
+    return prepare(N, c, e, n, m, t, X, Y, Z, false);
   }
 
   /**
-   * Перевод полиномов в матрицу, включая операцию масштабирования.
+   * Подготовка решетки с возможным удалением бесполезных сдвигов. При удалении план строится уже
+   * по оставшимся сдвигам.
    *
-   * @param Gs    сгенерированные полиномы G(x,y,z)
-   * @param basis базис решетки
+   * @param N     модуль RSA
+   * @param c     свободный член уравнения f(x,y) = xH(y) + c
+   * @param e     модуль уравнения f(x,y) = xH(y) + c = 0 (mod e)
+   * @param n     размер полиномов из публичного ключа
+   * @param m     параметр решетки
+   * @param t     параметр решетки
    * @param X     масштабирование по X
    * @param Y     масштабирование по Y
    * @param Z     масштабирование по Z
-   * @return матрица, готовая для LLL
+   * @param prune удалить сдвиги, диагональ которых больше e^m, см. {@link LatticeTemplate#prune}
+   * @return подготовленная решетка или null, если условие на определитель не выполнено
    */
-  private static BigInteger[][] polynomialsToMatrix(
-      Map<IndexTriple, MultivariatePolynomial> Gs,
-      List<Monomial> basis,
+  public static PreparedLattice prepare(
+      BigInteger N,
+      BigInteger c,
+      BigInteger e,
+      int n,
+      int m,
+      int t,
       BigInteger X,
       BigInteger Y,
-      BigInteger Z) {
-    BigInteger[][] matrix = new BigInteger[Gs.size()][basis.size()];
-    int i = 0;
-    int j = 0;
-
-    for (Entry<IndexTriple, MultivariatePolynomial> entry : Gs.entrySet()) {
-      for (Monomial monomial : basis) {
-        BigInteger coeff = entry.getValue().terms.getOrDefault(monomial, BigInteger.ZERO);
-        matrix[i][j] = coeff
-            .multiply(X.pow(monomial.x()))
-            .multiply(Y.pow(monomial.y()))
-            .multiply(Z.pow(monomial.z()));
-        j++;
-      }
+      BigInteger Z,
+      boolean prune) {
+    LatticeTemplate template = null;
+    LatticePlan plan;
+
+    if (prune) {
+      LatticeTemplate full = LatticeTemplate.of(new LatticeShape(n, m, t));
+      template = full.prune(e, X, Y, Z);
+      plan = LatticePlan.of(template.getShifts(), e, m, X, Y, Z);
+
+      LOGGER.log(Level.INFO, "Удалено бесполезных сдвигов: {0}, размерность {1} вместо {2}",
+          full.getShifts().size() - template.getShifts().size(),
+          template.getShifts().size(), full.getShifts().size());
+    } else {
+      plan = plan(e, n, m, t, X, Y, Z);
+    }
+
+    LOGGER.log(Level.INFO, "План решетки: {0}", plan);
+    LOGGER.log(Level.DEBUG, () -> "План решетки: " + plan.details());
 
-      i++;
-      j = 0;
+    if (!plan.isFeasible(LatticePlan.DEFAULT_TOLERANCE)) {
+      LOGGER.log(Level.WARNING, "Условие det^(1/w) < e^m не выполнено, факторизация прервана");
+      return null;
     }
 
-    return matrix;
+    return template == null
+        ? buildLattice(N, c, e, n, m, t, X, Y, Z)
+        : buildLattice(N, c, e, m, template, X, Y, Z);
   }
 
   /**
-   * Запись матрицы во входной файл для LLL.
+   * Редукция подготовленной решетки и поиск корня.
    *
-   * @param matrix матрица
-   * @param file   входной файл
-   * @throws IOException исключение при работе с файлом
+   * @param prepared подготовленная решетка
+   * @param reducer  редукция решетки
+   * @param solver   поиск корня y = p + q
+   * @return делители N или null, если корень не найден
+   * @throws IOException          исключение при работе с файлами
+   * @throws InterruptedException исключение при работе с внешними утилитами
    */
-  private static void writeMatrixForFplll(BigInteger[][] matrix, File file) throws IOException {
-    try (PrintWriter writer = new PrintWriter(file)) {
-      writer.println("[");
-
-      for (int i = 0; i < matrix.length; i++) {
-        String row = Arrays.stream(matrix[i])
-            .map(BigInteger::toString)
-            .collect(Collectors.joining(" "));
-        writer.print("[" + row + "]");
-        writer.println(i < matrix.length - 1 ? "" : "]]");
-      }
+  public static Dividers solve(
+      PreparedLattice prepared,
+      LatticeReducer reducer,
+      RootSolver solver) throws IOException, InterruptedException {
+    BigInteger[][] reduced = reducer instanceof StreamingLatticeReducer streaming
+        ? streaming.reduce(prepared::writeTo)
+        : reducer.reduce(prepared.matrix());
+
+    ShortVectors polys = ShortVectors.select(
+        reduced, prepared.getLattice(), prepared.getModulus(), solver.vectorsNeeded());
+    BigInteger sum = solver.solve(polys, prepared.getShape().n() - 1, prepared.getN());
+
+    LOGGER.log(Level.INFO,
+        "Условию Хоугрейва-Грэма удовлетворяют {0} из {1} векторов, размасштабировано {2}",
+        polys.satisfyingBound(), reduced.length, polys.unscaled());
+
+    if (sum == null) {
+      return null;
     }
+
+    return getDividers(sum, prepared.getN());
   }
 
   /**
-   * Запуск LLL.
+   * План решетки: размерность, определитель, размеры столбцов и оценка ресурсов.
    *
-   * @param inputFile  файл с входными данными
-   * @param outputFile файл для вывода
-   * @throws IOException          исключение при работе с файлом
-   * @throws InterruptedException исключение при работе с утилитой fplll
+   * @param e модуль уравнения f(x,y) = xH(y) + c = 0 (mod e)
+   * @param n размер полиномов из публичного ключа
+   * @param m параметр решетки
+   * @param t параметр решетки
+   * @param X масштабирование по X
+   * @param Y масштабирование по Y
+   * @param Z масштабирование по Z
+   * @return план решетки
    */
-  private static void runFplll(File inputFile, File outputFile)
-      throws IOException, InterruptedException {
-    ProcessBuilder pb = new ProcessBuilder(
-        "fplll",
-        inputFile.getAbsolutePath(),
-        "-a",
-        "lll"
-    );
-
-    pb.redirectOutput(outputFile);
-    pb.redirectError(ProcessBuilder.Redirect.INHERIT);
-
-    Process process = pb.start();
-    int exitCode = process.waitFor();
-
-    if (exitCode != 0) {
-      throw new RuntimeException("fplll завершился с ошибкой, код: " + exitCode);
-    }
+  public static LatticePlan plan(
+      BigInteger e,
+      int n,
+      int m,
+      int t,
+      BigInteger X,
+      BigInteger Y,
+      BigInteger Z) {
+    return LatticePlan.of(new LatticeShape(n, m, t).shifts(), e, m, X, Y, Z);
   }
 
   /**
-   * Чтение файла-результата применения LLL.
+   * Генерация степеней F^k * e^(m-k) для k = 0..m.
+   *
+   * <p>Коэффициенты F приводятся по модулю e, а коэффициенты F^k * e^(m-k) - по модулю e^m, кроме
+   * диагонального коэффициента при z^k. Корень по модулю e^m при этом сохраняется, а записи
+   * решетки становятся короче. Так как F^k * e^(m-k) mod e^m = e^(m-k) * (F^k mod e^k), по модулю
+   * e^k приводится сам F^k, и на e^(m-k) умножаются уже приведенные коэффициенты.
    *
-   * @param file файл с результатами LLL
-   * @return список полиномов
-   * @throws IOException исключение при работе с файлами
+   * @param H полином H(y)
+   * @param c свободный член уравнения f(x,y,z) = xH(y) + c
+   * @param e модуль уравнения f(x,y,z) = xH(y) + c = 0 (mod e)
+   * @param m параметр решетки
+   * @return массив степеней, индекс - k
    */
-  private static List<BigInteger[]> readFplllOutput(File file) throws IOException {
-    List<BigInteger[]> rows = new ArrayList<>();
-
-    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-      String line;
-
-      while ((line = reader.readLine()) != null) {
-        line = line.trim();
-
-        if (line.startsWith("[[")) {
-          line = line.substring(2).trim();
-        } else if (line.startsWith("[")) {
-          line = line.substring(1).trim();
-        }
-
-        if (line.endsWith("]]")) {
-          line = line.substring(0, line.length() - 2).trim();
-        } else if (line.endsWith("]")) {
-          line = line.substring(0, line.length() - 1).trim();
-        }
-
-        if (line.isEmpty()) {
-          continue;
-        }
-
-        String[] tokens = line.split("\\s+");
-        BigInteger[] row = Arrays.stream(tokens)
-            .map(BigInteger::new)
-            .toArray(BigInteger[]::new);
-        rows.add(row);
-      }
+  private static MultivariatePolynomial[] generateScaledPowers(
+      BigInteger[] H,
+      BigInteger c,
+      BigInteger e,
+      int m) {
+    MultivariatePolynomial F = Polynomial.buildF(H, c);
+    BigInteger[] scales = new BigInteger[m + 1];
+    scales[0] = BigInteger.ONE;
+
+    for (int k = 1; k <= m; k++) {
+      scales[k] = scales[k - 1].multiply(e);
     }
-    return rows;
+
+    MultivariatePolynomial[] powers = KroneckerSubstitution.powers(
+        CoefficientReduction.reduce(F, e, PackedTermMap.pack(0, 0, 1)), m);
+
+    MultivariatePolynomial[] Fk = IntStream.rangeClosed(0, m)
+        .parallel()
+        .mapToObj(k -> CoefficientReduction.reduce(
+            powers[k], scales[k], PackedTermMap.pack(0, 0, k)).multiply(scales[m - k]))
+        .toArray(MultivariatePolynomial[]::new);
+
+    int after = Arrays.stream(Fk).mapToInt(CoefficientReduction::maxBitLength).max().orElse(0);
+
+    LOGGER.log(Level.INFO, "Длина коэффициентов полиномов G: {0,number,#} бит", after);
+    LOGGER.log(Level.DEBUG, () -> "Число членов F^k, k = 0.." + m + ": " + Arrays.toString(
+        Arrays.stream(powers).mapToInt(power -> power.getPackedTerms().size()).toArray()));
+
+    return Fk;
+  }
+
+  private static PreparedLattice buildLattice(
+      BigInteger N,
+      BigInteger c,
+      BigInteger e,
+      int n,
+      int m,
+      int t,
+      BigInteger X,
+      BigInteger Y,
+      BigInteger Z) {
+    return buildLattice(N, c, e, m, LatticeTemplate.of(new LatticeShape(n, m, t)), X, Y, Z);
+  }
+
+  private static PreparedLattice buildLattice(
+      BigInteger N,
+      BigInteger c,
+      BigInteger e,
+      int m,
+      LatticeTemplate template,
+      BigInteger X,
+      BigInteger Y,
+      BigInteger Z) {
+    MultivariatePolynomial[] Fk = generateScaledPowers(
+        Polynomial.phi(template.getShape().n(), N), c, e, m);
+
+    return new PreparedLattice(
+        N, e.pow(m), template, Fk, new ScaledLattice(template.getBasis(), X, Y, Z));
   }
 
   /**
    * Перевод векторов в полиномы с размасштабированием.
    *
+   * <p>Для нескольких векторов одной решетки выгоднее один раз создать {@link ScaledLattice}.
+   *
    * @param vector вектор
    * @param basis  базис
    * @param X      масштаб по X
@@ -347,170 +575,22 @@ public class RSALatticeFactorization {
       BigInteger X,
       BigInteger Y,
       BigInteger Z) {
-    MultivariatePolynomial poly = new MultivariatePolynomial();
-
-    for (int i = 0; i < vector.length; i++) {
-      BigInteger rawCoeff = vector[i];
-
-      if (rawCoeff.equals(BigInteger.ZERO)) {
-        continue;
-      }
-
-      Monomial m = basis.get(i);
-      BigInteger scale = X.pow(m.x()).multiply(Y.pow(m.y())).multiply(Z.pow(m.z()));
-
-      BigInteger coeff = rawCoeff.divide(scale);
-
-      poly.addTerm(coeff, m);
-    }
-
-    return poly;
+    return new ScaledLattice(basis, X, Y, Z).unscale(vector);
   }
 
   /**
-   * Экспортирование полиномов в файл sage для решения методом Гребнера.
-   *
-   * @param polys полиномы
-   * @param file  файл для вывода
-   * @throws IOException исключение при работе с файлом
+   * Делители по сумме y = p + q или null, если y не дает разложения mult = p * q.
    */
-  private static void exportPolynomialsToSage(List<MultivariatePolynomial> polys, int r, File file)
-      throws IOException {
-    try (PrintWriter writer = new PrintWriter(file)) {
-      writer.println("R.<x, y> = PolynomialRing(QQ, 2)");
-      writer.println();
-
-      List<MultivariatePolynomial> sorted = new ArrayList<>(polys);
-      sorted.sort(Comparator.comparing(RSALatticeFactorization::computeEuclideanNormSquared));
-
-      for (int i = 0; i < sorted.size(); i++) {
-        MultivariatePolynomial poly = sorted.get(i);
-        StringBuilder sb = new StringBuilder("f" + (i + 1) + " = ");
-        List<String> terms = getTerms(poly, r);
-        sb.append(String.join(" + ", terms));
-        writer.println(sb);
-      }
-
-      writer.println();
-      writer.println("I = ideal(f1, f2, f3)");
-      writer.println("print('Groebner basis:')");
-      writer.println("print(I.groebner_basis())");
-    }
-  }
-
-  /**
-   * Запускает SageMath на скрипте (файле .sage) и возвращает строки вывода.
-   *
-   * @param sageFile файл скрипта Sage, который нужно запустить
-   * @return список строк, которые скрипт Sage напечатал в stdout
-   * @throws IOException          при ошибках ввода-вывода
-   * @throws InterruptedException при сбоях выполнения процесса
-   */
-  private static List<String> runSage(File sageFile) throws IOException, InterruptedException {
-    ProcessBuilder pb = new ProcessBuilder("sage", sageFile.getAbsolutePath());
-    pb.redirectError(ProcessBuilder.Redirect.INHERIT);
-
-    Process process = pb.start();
-
-    List<String> outputLines = new ArrayList<>();
-
-    try (BufferedReader reader = new BufferedReader(
-        new InputStreamReader(process.getInputStream()))) {
-      String line;
-
-      while ((line = reader.readLine()) != null) {
-        outputLines.add(line);
-      }
-    }
-
-    int exitCode = process.waitFor();
-
-    if (exitCode != 0) {
-      throw new RuntimeException("Sage завершился с ошибкой, код: " + exitCode);
-    }
-
-    return outputLines;
-  }
-
-  /**
-   * Извлекает значение y из строки вида "[x - 123, y - 4567890]".
-   *
-   * @param input входная строка
-   * @return значение y как BigInteger
-   * @throws IllegalArgumentException если значение y не найдено
-   */
-  public static BigInteger extractResponse(String input) {
-    Pattern pattern = Pattern.compile("y\\s*-\\s*(-?\\d+)");
-    Matcher matcher = pattern.matcher(input);
-
-    if (matcher.find()) {
-      return new BigInteger(matcher.group(1));
+  private static Dividers getDividers(BigInteger sum, BigInteger mult) {
+    if (sum.pow(2).subtract(mult.multiply(BigInteger.valueOf(4))).signum() < 0) {
+      return null;
     }
 
-    throw new IllegalArgumentException("Не удалось найти значение y в строке: " + input);
-  }
-
-  private static Dividers getDividers(BigInteger sum, BigInteger mult) {
     BigInteger q = sum.subtract(sum.pow(2).subtract(mult.multiply(BigInteger.valueOf(4))).sqrt())
         .divide(BigInteger.valueOf(2));
     BigInteger p = sum.add(sum.pow(2).subtract(mult.multiply(BigInteger.valueOf(4))).sqrt())
         .divide(BigInteger.valueOf(2));
-    return new Dividers(p, q);
-  }
-
-  /**
-   * Вычисление Евклидовой нормы.
-   *
-   * @param poly полиномы
-   * @return Евклидова норма
-   */
-  private static BigInteger computeEuclideanNormSquared(MultivariatePolynomial poly) {
-    BigInteger normSquared = BigInteger.ZERO;
-
-    for (BigInteger coeff : poly.getTerms().values()) {
-      normSquared = normSquared.add(coeff.pow(2));
-    }
-
-    return normSquared.sqrt();
-  }
-
-  /**
-   * Вывод полинома для файла sage.
-   *
-   * @param poly полином
-   * @return список мономов
-   */
-  private static List<String> getTerms(MultivariatePolynomial poly, int r) {
-    List<String> terms = new ArrayList<>();
-    String substitution = "(x*y^" + r + ")";
-
-    for (var entry : poly.terms.entrySet()) {
-      BigInteger coeff = entry.getValue();
-      Monomial m = entry.getKey();
-
-      if (coeff.equals(BigInteger.ZERO)) {
-        continue;
-      }
-
-      String term = coeff.toString();
-      if (m.x() > 0) {
-        term += "*x" + (m.x() > 1 ? "^" + m.x() : "");
-      }
-      if (m.y() > 0) {
-        term += "*y" + (m.y() > 1 ? "^" + m.y() : "");
-      }
-      if (m.z() > 0) {
-        term += "*" + substitution + (m.z() > 1 ? "^" + m.z() : "");
-      }
-
-      terms.add(term);
-    }
-
-    if (terms.isEmpty()) {
-      terms.add("0");
-    }
-
-    return terms;
+    return p.multiply(q).equals(mult) ? new Dividers(p, q) : null;
   }
 
   private static void checkEquations(
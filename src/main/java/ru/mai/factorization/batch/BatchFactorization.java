@@ -0,0 +1,302 @@
+package ru.mai.factorization.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import ru.mai.factorization.RSALatticeFactorization;
+import ru.mai.factorization.dividers.Dividers;
+import ru.mai.factorization.lattice.LatticeShape;
+import ru.mai.factorization.lattice.PreparedLattice;
+import ru.mai.factorization.reduction.LatticeReducer;
+import ru.mai.factorization.reduction.StreamingLatticeReducer;
+import ru.mai.factorization.solver.RootSolver;
+import ru.mai.factorization.utils.FlatJson;
+
+/**
+ * Пакетная факторизация: задачи читаются построчно из JSONL или CSV и выполняются в два этапа на
+ * отдельных пулах потоков.
+ *
+ * <p>Пока решетка одной задачи редуцируется, решетка следующей уже строится. Число задач в работе
+ * ограничено удвоенным числом потоков, поэтому файл любого размера читается по мере выполнения.
+ * Результаты записываются в формате JSONL в порядке завершения, по строке на задачу. Пулы
+ * живут до вызова {@link #close()}, поэтому один экземпляр может обслуживать несколько входов.
+ */
+public class BatchFactorization implements AutoCloseable {
+
+  private static final Logger LOGGER = System.getLogger(BatchFactorization.class.getName());
+
+  private final int workers;
+  private final LatticeReducer reducer;
+  private final RootSolver solver;
+  private final boolean prune;
+  private final ExecutorService buildPool;
+  private final ExecutorService reducePool;
+
+  /**
+   * Конструктор.
+   *
+   * @param workers число потоков на каждом этапе
+   * @param reducer редукция решетки
+   * @param solver  поиск корня y = p + q
+   * @param prune   удалять бесполезные сдвиги решетки
+   */
+  public BatchFactorization(
+      int workers,
+      LatticeReducer reducer,
+      RootSolver solver,
+      boolean prune) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Число потоков должно быть положительным.");
+    }
+
+    this.workers = workers;
+    this.reducer = reducer;
+    this.solver = solver;
+    this.prune = prune;
+    this.buildPool = Executors.newFixedThreadPool(workers);
+    this.reducePool = Executors.newFixedThreadPool(workers);
+  }
+
+  /**
+   * Выполнение всех задач из входного потока. Метод возвращается, когда все результаты записаны.
+   *
+   * @param input    задачи: JSON-объект на строку или CSV с заголовком
+   * @param csv      true, если вход в формате CSV
+   * @param defaults значения параметров, не заданных в записи
+   * @param output   поток для результатов
+   * @throws IOException          исключение при чтении задач или записи результатов
+   * @throws InterruptedException исключение при ожидании задач
+   */
+  public void run(
+      BufferedReader input,
+      boolean csv,
+      Map<String, String> defaults,
+      Writer output) throws IOException, InterruptedException {
+    int limit = 2 * workers;
+    Semaphore inFlight = new Semaphore(limit);
+    String[] header = csv ? readHeader(input) : null;
+    long number = 0;
+    String line;
+
+    while ((line = input.readLine()) != null) {
+      if (line.isBlank()) {
+        continue;
+      }
+
+      number++;
+      Map<String, String> fields = null;
+      FactorizationJob job;
+
+      try {
+        fields = csv ? parseCsv(header, line) : FlatJson.parse(line);
+        job = FactorizationJob.of(fields, defaults, number);
+      } catch (IllegalArgumentException ex) {
+        String id = fields == null ? null : fields.get("id");
+        write(output, error(id == null ? String.valueOf(number) : id, ex));
+        continue;
+      }
+
+      inFlight.acquire();
+
+      submit(job).thenAccept(result -> {
+        try {
+          write(output, result);
+        } catch (IOException ex) {
+          LOGGER.log(Level.ERROR, "Не удалось записать результат задачи " + job.id(), ex);
+        } finally {
+          inFlight.release();
+        }
+      });
+    }
+
+    inFlight.acquire(limit);
+  }
+
+  /**
+   * Запуск одной задачи: построение решетки на пуле построения, затем редукция и поиск корня на
+   * пуле редукции. Ошибки задачи не прерывают результат, а попадают в поле error.
+   *
+   * @param job задача
+   * @return результат задачи в виде полей JSON-объекта
+   */
+  public CompletableFuture<Map<String, Object>> submit(FactorizationJob job) {
+    long begin = System.nanoTime();
+    // Моменты начала и конца построения решетки и начала редукции.
+    long[] stages = new long[3];
+
+    return CompletableFuture
+        .supplyAsync(() -> {
+          stages[0] = System.nanoTime();
+          PreparedLattice prepared = prepare(job);
+
+          if (prepared != null && !(reducer instanceof StreamingLatticeReducer)) {
+            prepared.matrix();
+          }
+
+          stages[1] = System.nanoTime();
+          return prepared;
+        }, buildPool)
+        .thenCompose(prepared -> prepared == null
+            ? CompletableFuture.completedFuture(null)
+            : CompletableFuture.supplyAsync(() -> {
+              stages[2] = System.nanoTime();
+              return solve(prepared);
+            }, reducePool))
+        .handle((dividers, ex) -> {
+          long end = System.nanoTime();
+          long buildNanos = stages[0] == 0 ? 0 : (stages[1] == 0 ? end : stages[1]) - stages[0];
+          long reduceNanos = stages[2] == 0 ? 0 : end - stages[2];
+          Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+          Dividers found = dividers != null && dividers.p().multiply(dividers.q()).equals(job.N())
+              ? dividers
+              : null;
+          String status = cause != null ? "error"
+              : found != null ? "ok"
+              : stages[2] != 0 ? "not_found" : "infeasible";
+
+          return result(job.id(), status, found, buildNanos, reduceNanos, end - begin, cause);
+        });
+  }
+
+  /**
+   * Результат задачи, которую не удалось разобрать.
+   *
+   * @param id    идентификатор задачи
+   * @param error ошибка разбора
+   * @return результат в виде полей JSON-объекта
+   */
+  public static Map<String, Object> error(String id, Throwable error) {
+    return result(id, "error", null, 0, 0, 0, error);
+  }
+
+  /**
+   * Остановка пулов потоков. Незавершенные задачи прерываются.
+   */
+  @Override
+  public void close() {
+    buildPool.shutdownNow();
+    reducePool.shutdownNow();
+  }
+
+  private PreparedLattice prepare(FactorizationJob job) {
+    int m;
+    int t;
+
+    if (job.isAuto()) {
+      LatticeShape shape = RSALatticeFactorization.tune(
+          job.n(), job.N(), job.e(), job.M(), job.delta());
+
+      if (shape == null) {
+        return null;
+      }
+
+      m = shape.m();
+      t = shape.t();
+    } else {
+      m = job.m();
+      t = job.t();
+    }
+
+    return RSALatticeFactorization.prepare(
+        job.n(), m, t, job.N(), job.e(), job.d0(), job.M(), job.delta(), prune);
+  }
+
+  private Dividers solve(PreparedLattice prepared) {
+    try {
+      return RSALatticeFactorization.solve(prepared, reducer, solver);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new CompletionException(ex);
+    }
+  }
+
+  private static Map<String, Object> result(
+      String id,
+      String status,
+      Dividers dividers,
+      long buildNanos,
+      long reduceNanos,
+      long totalNanos,
+      Throwable error) {
+    Map<String, Object> fields = new LinkedHashMap<>();
+    fields.put("id", id);
+    fields.put("status", status);
+
+    if (dividers != null) {
+      fields.put("p", dividers.p().toString());
+      fields.put("q", dividers.q().toString());
+    }
+
+    fields.put("buildMs", buildNanos / 1_000_000);
+    fields.put("reduceMs", reduceNanos / 1_000_000);
+    fields.put("totalMs", totalNanos / 1_000_000);
+
+    if (error != null) {
+      fields.put("error", String.valueOf(error.getMessage()));
+    }
+
+    return fields;
+  }
+
+  private static void write(Writer output, Map<String, Object> fields) throws IOException {
+    String line = FlatJson.write(fields);
+
+    synchronized (output) {
+      output.write(line);
+      output.write('\n');
+      output.flush();
+    }
+  }
+
+  private static String[] readHeader(BufferedReader input) throws IOException {
+    String line;
+
+    do {
+      line = input.readLine();
+    } while (line != null && line.isBlank());
+
+    if (line == null) {
+      return new String[0];
+    }
+
+    return splitCsv(line);
+  }
+
+  private static Map<String, String> parseCsv(String[] header, String line) {
+    String[] values = splitCsv(line);
+
+    if (values.length > header.length) {
+      throw new IllegalArgumentException("Полей в строке CSV больше, чем в заголовке.");
+    }
+
+    Map<String, String> fields = new LinkedHashMap<>();
+
+    for (int i = 0; i < values.length; i++) {
+      fields.put(header[i], values[i]);
+    }
+
+    return fields;
+  }
+
+  private static String[] splitCsv(String line) {
+    return Arrays.stream(line.split(",", -1))
+        .map(String::strip)
+        .map(part -> part.length() >= 2 && part.startsWith("\"") && part.endsWith("\"")
+            ? part.substring(1, part.length() - 1)
+            : part)
+        .toArray(String[]::new);
+  }
+}
@@ -0,0 +1,281 @@
+package ru.mai.factorization.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import ru.mai.factorization.utils.FlatJson;
+
+/**
+ * Демон факторизации: принимает задачи через локальный сокет, пока JVM, JIT и кэши шаблонов
+ * решеток остаются прогретыми.
+ *
+ * <p>Протокол построчный: клиент отправляет JSON-объекты, по одному на строку. Объект с полями
+ * задачи (как в пакетном файле) ставится в очередь, демон сразу отвечает
+ * {"id": ..., "status": "accepted"}, а результат присылает отдельной строкой по готовности, так что
+ * в одном соединении можно отправить несколько задач. Служебные запросы задаются полем command:
+ * "ping" (ответ "pong"), "stats" (число задач в работе и выполненных) и "shutdown".
+ */
+public class FactorizationDaemon implements AutoCloseable {
+
+  private static final Logger LOGGER = System.getLogger(FactorizationDaemon.class.getName());
+
+  private final BatchFactorization batch;
+  private final Map<String, String> defaults;
+  private final ServerSocketChannel server;
+  private final Path socketPath;
+
+  /**
+   * Потоки соединений. Вычисления идут в пулах {@link BatchFactorization}, поэтому поток
+   * соединения почти все время ждет ввода.
+   */
+  private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "factorization-connection");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final AtomicLong jobCounter = new AtomicLong();
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicLong completed = new AtomicLong();
+
+  private FactorizationDaemon(
+      BatchFactorization batch,
+      Map<String, String> defaults,
+      ServerSocketChannel server,
+      Path socketPath) {
+    this.batch = batch;
+    this.defaults = defaults;
+    this.server = server;
+    this.socketPath = socketPath;
+  }
+
+  /**
+   * Демон на Unix-сокете. Существующий файл сокета заменяется.
+   *
+   * @param path     путь к файлу сокета
+   * @param batch    исполнитель задач
+   * @param defaults значения параметров, не заданных в задаче
+   * @return демон
+   * @throws IOException исключение при открытии сокета
+   */
+  public static FactorizationDaemon unix(
+      Path path,
+      BatchFactorization batch,
+      Map<String, String> defaults) throws IOException {
+    Files.deleteIfExists(path);
+    ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    server.bind(UnixDomainSocketAddress.of(path));
+
+    return new FactorizationDaemon(batch, defaults, server, path);
+  }
+
+  /**
+   * Демон на TCP-сокете.
+   *
+   * @param address  адрес, обычно 127.0.0.1 и порт
+   * @param batch    исполнитель задач
+   * @param defaults значения параметров, не заданных в задаче
+   * @return демон
+   * @throws IOException исключение при открытии сокета
+   */
+  public static FactorizationDaemon tcp(
+      SocketAddress address,
+      BatchFactorization batch,
+      Map<String, String> defaults) throws IOException {
+    ServerSocketChannel server = ServerSocketChannel.open();
+    server.bind(address);
+
+    return new FactorizationDaemon(batch, defaults, server, null);
+  }
+
+  /**
+   * Адрес, на котором демон принимает соединения.
+   *
+   * @return адрес сокета
+   * @throws IOException исключение при обращении к сокету
+   */
+  public SocketAddress getAddress() throws IOException {
+    return server.getLocalAddress();
+  }
+
+  /**
+   * Прием соединений до команды shutdown или вызова {@link #close()}.
+   *
+   * @throws IOException исключение при приеме соединения
+   */
+  public void serve() throws IOException {
+    LOGGER.log(Level.INFO, "Демон факторизации принимает задачи на {0}", getAddress());
+
+    while (server.isOpen()) {
+      SocketChannel channel;
+
+      try {
+        channel = server.accept();
+      } catch (AsynchronousCloseException ex) {
+        break;
+      }
+
+      connections.execute(() -> handle(channel));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.close();
+    connections.shutdownNow();
+
+    if (socketPath != null) {
+      Files.deleteIfExists(socketPath);
+    }
+  }
+
+  private void handle(SocketChannel channel) {
+    try (channel;
+        BufferedReader reader = new BufferedReader(
+            Channels.newReader(channel, StandardCharsets.UTF_8))) {
+      List<CompletableFuture<Void>> pending = new ArrayList<>();
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        if (!line.isBlank() && !request(line, channel, pending)) {
+          break;
+        }
+      }
+
+      // Клиент закончил отправку задач, но ждет результатов уже принятых.
+      CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+    } catch (IOException ex) {
+      LOGGER.log(Level.DEBUG, "Соединение закрыто с ошибкой", ex);
+    }
+  }
+
+  /**
+   * Обработка одной строки запроса.
+   *
+   * @return false, если соединение нужно закрыть
+   */
+  private boolean request(
+      String line,
+      SocketChannel channel,
+      List<CompletableFuture<Void>> pending) throws IOException {
+    long number = jobCounter.incrementAndGet();
+    Map<String, String> fields;
+
+    try {
+      fields = FlatJson.parse(line);
+    } catch (IllegalArgumentException ex) {
+      send(channel, BatchFactorization.error(String.valueOf(number), ex));
+      return true;
+    }
+
+    String command = fields.get("command");
+
+    if (command != null) {
+      return command(command, channel);
+    }
+
+    FactorizationJob job;
+
+    try {
+      job = FactorizationJob.of(fields, defaults, number);
+    } catch (IllegalArgumentException ex) {
+      String id = fields.get("id");
+      send(channel, BatchFactorization.error(id == null ? String.valueOf(number) : id, ex));
+      return true;
+    }
+
+    Map<String, Object> accepted = new LinkedHashMap<>();
+    accepted.put("id", job.id());
+    accepted.put("status", "accepted");
+    send(channel, accepted);
+
+    CompletableFuture<Map<String, Object>> future;
+
+    try {
+      future = batch.submit(job);
+    } catch (RejectedExecutionException ex) {
+      // Пулы уже остановлены командой shutdown из другого соединения.
+      send(channel, BatchFactorization.error(
+          job.id(), new IllegalStateException("Демон останавливается, задача не принята.", ex)));
+      return true;
+    }
+
+    running.incrementAndGet();
+    pending.removeIf(CompletableFuture::isDone);
+    pending.add(future.thenAccept(result -> {
+      running.decrementAndGet();
+      completed.incrementAndGet();
+
+      try {
+        send(channel, result);
+      } catch (IOException ex) {
+        LOGGER.log(Level.DEBUG, "Клиент отключился до результата задачи " + job.id(), ex);
+      }
+    }));
+
+    return true;
+  }
+
+  private boolean command(String command, SocketChannel channel) throws IOException {
+    Map<String, Object> response = new LinkedHashMap<>();
+
+    switch (command) {
+      case "ping" -> response.put("status", "pong");
+      case "stats" -> {
+        response.put("status", "ok");
+        response.put("running", running.get());
+        response.put("completed", completed.get());
+      }
+      case "shutdown" -> {
+        response.put("status", "stopping");
+        send(channel, response);
+        close();
+        return false;
+      }
+      default -> {
+        response.put("status", "error");
+        response.put("error", "Неизвестная команда " + command);
+      }
+    }
+
+    send(channel, response);
+    return true;
+  }
+
+  /**
+   * Отправка строки ответа. Запись идет прямо в канал: потоки из {@link Channels} блокируют канал
+   * на все время ожидания ввода, и результат задачи не мог бы быть отправлен, пока клиент молчит.
+   */
+  private static void send(SocketChannel channel, Map<String, ?> fields) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(
+        (FlatJson.write(fields) + "\n").getBytes(StandardCharsets.UTF_8));
+
+    synchronized (channel) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+}
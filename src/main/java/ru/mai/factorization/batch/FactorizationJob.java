@@ -0,0 +1,91 @@
+package ru.mai.factorization.batch;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * Одна задача факторизации из пакетного файла.
+ *
+ * @param id    идентификатор задачи, повторяется в результате
+ * @param n     параметр RSA
+ * @param m     параметр решетки или null, если параметры подбираются автоматически
+ * @param t     параметр решетки или null, если параметры подбираются автоматически
+ * @param N     параметр RSA
+ * @param e     параметр RSA
+ * @param d0    параметр RSA
+ * @param M     число известных бит в виде 2^s
+ * @param delta приближение d относительно N
+ */
+public record FactorizationJob(
+    String id,
+    int n,
+    Integer m,
+    Integer t,
+    BigInteger N,
+    BigInteger e,
+    BigInteger d0,
+    BigInteger M,
+    BigDecimal delta) {
+
+  /**
+   * Построение задачи по полям записи. Отсутствующие поля берутся из значений по умолчанию.
+   *
+   * @param fields   поля записи
+   * @param defaults значения по умолчанию (параметры командной строки)
+   * @param number   номер записи, используется как идентификатор, если поле id не задано
+   * @return задача
+   */
+  public static FactorizationJob of(
+      Map<String, String> fields,
+      Map<String, String> defaults,
+      long number) {
+    String m = field(fields, defaults, "m", false);
+    String t = field(fields, defaults, "t", false);
+
+    if ((m == null) != (t == null)) {
+      throw new IllegalArgumentException("Параметры m и t задаются только вместе.");
+    }
+
+    String id = fields.get("id");
+
+    return new FactorizationJob(
+        id == null || id.isEmpty() ? String.valueOf(number) : id,
+        Integer.parseInt(field(fields, defaults, "n", true)),
+        m == null ? null : Integer.valueOf(m),
+        t == null ? null : Integer.valueOf(t),
+        new BigInteger(field(fields, defaults, "N", true)),
+        new BigInteger(field(fields, defaults, "e", true)),
+        new BigInteger(field(fields, defaults, "d0", true)),
+        new BigInteger(field(fields, defaults, "M", true)),
+        new BigDecimal(field(fields, defaults, "delta", true))
+    );
+  }
+
+  /**
+   * Проверка, что параметры решетки подбираются автоматически.
+   *
+   * @return true, если m и t не заданы
+   */
+  public boolean isAuto() {
+    return m == null;
+  }
+
+  private static String field(
+      Map<String, String> fields,
+      Map<String, String> defaults,
+      String name,
+      boolean required) {
+    String value = fields.get(name);
+
+    if (value == null || value.isEmpty()) {
+      value = defaults.get(name);
+    }
+
+    if (required && (value == null || value.isEmpty())) {
+      throw new IllegalArgumentException("Не задан параметр " + name + ".");
+    }
+
+    return value;
+  }
+}
@@ -0,0 +1,157 @@
+package ru.mai.factorization.batch;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import ru.mai.factorization.RSALatticeFactorization;
+import ru.mai.factorization.dividers.Dividers;
+import ru.mai.factorization.lattice.LatticeShape;
+import ru.mai.factorization.lattice.PreparedLattice;
+import ru.mai.factorization.reduction.LatticeReducer;
+import ru.mai.factorization.solver.RootSolver;
+
+/**
+ * Гонка параметров решетки: несколько форм (m, t) для одного ключа запускаются одновременно,
+ * и побеждает первая, давшая делители с p * q = N.
+ *
+ * <p>После победы остальные задачи прерываются: LLL и поиск корня внутри JVM проверяют
+ * прерывание потока, а внешние утилиты завершаются принудительно. Метод возвращается только
+ * после остановки всех задач.
+ */
+public class ParameterRace {
+
+  private static final Logger LOGGER = System.getLogger(ParameterRace.class.getName());
+
+  private static final long STOP_TIMEOUT_SECONDS = 30;
+
+  private final int threads;
+  private final LatticeReducer reducer;
+  private final RootSolver solver;
+  private final boolean prune;
+
+  /**
+   * Результат гонки.
+   *
+   * @param shape    победившая форма решетки
+   * @param dividers делители N
+   */
+  public record Result(LatticeShape shape, Dividers dividers) {
+  }
+
+  /**
+   * Конструктор.
+   *
+   * @param threads число одновременно выполняемых форм
+   * @param reducer редукция решетки
+   * @param solver  поиск корня y = p + q
+   * @param prune   удалять бесполезные сдвиги решетки
+   */
+  public ParameterRace(int threads, LatticeReducer reducer, RootSolver solver, boolean prune) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Число потоков должно быть положительным.");
+    }
+
+    this.threads = threads;
+    this.reducer = reducer;
+    this.solver = solver;
+    this.prune = prune;
+  }
+
+  /**
+   * Запуск гонки.
+   *
+   * @param n      параметр RSA
+   * @param shapes формы решетки в порядке запуска
+   * @param N      параметр RSA
+   * @param e      параметр RSA
+   * @param d0     параметр RSA
+   * @param M      число известных бит в виде 2^s
+   * @param delta  приближение d относительно N
+   * @return первая форма, давшая делители N, или null, если ни одна не дала
+   * @throws InterruptedException исключение, если прерван поток, ожидающий гонку
+   */
+  public Result run(
+      int n,
+      List<LatticeShape> shapes,
+      BigInteger N,
+      BigInteger e,
+      BigInteger d0,
+      BigInteger M,
+      BigDecimal delta) throws InterruptedException {
+    if (shapes.isEmpty()) {
+      return null;
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, shapes.size()));
+    ExecutorCompletionService<Result> completion = new ExecutorCompletionService<>(pool);
+    List<Future<Result>> futures = new ArrayList<>();
+
+    try {
+      for (LatticeShape shape : shapes) {
+        futures.add(completion.submit(() -> attempt(shape, N, e, d0, M, delta)));
+      }
+
+      for (int i = 0; i < futures.size(); i++) {
+        Future<Result> done = completion.take();
+
+        try {
+          Result result = done.get();
+
+          if (result != null) {
+            LOGGER.log(Level.INFO, "Делители найдены при {0}, остальные формы отменяются",
+                result.shape());
+            return result;
+          }
+        } catch (ExecutionException ex) {
+          LOGGER.log(Level.WARNING, "Форма решетки завершилась с ошибкой", ex.getCause());
+        }
+      }
+
+      return null;
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+      pool.shutdownNow();
+
+      if (!pool.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOGGER.log(Level.WARNING, "Не все формы решетки остановились после отмены");
+      }
+    }
+  }
+
+  private Result attempt(
+      LatticeShape shape,
+      BigInteger N,
+      BigInteger e,
+      BigInteger d0,
+      BigInteger M,
+      BigDecimal delta) throws Exception {
+    PreparedLattice prepared = RSALatticeFactorization.prepare(
+        shape.n(), shape.m(), shape.t(), N, e, d0, M, delta, prune);
+
+    if (prepared == null) {
+      return null;
+    }
+
+    if (Thread.interrupted()) {
+      throw new InterruptedException("Форма решетки " + shape + " отменена");
+    }
+
+    Dividers dividers = RSALatticeFactorization.solve(prepared, reducer, solver);
+
+    if (dividers == null || !dividers.p().multiply(dividers.q()).equals(N)) {
+      LOGGER.log(Level.INFO, "Форма {0} не дала делителей N", shape);
+      return null;
+    }
+
+    return new Result(shape, dividers);
+  }
+}
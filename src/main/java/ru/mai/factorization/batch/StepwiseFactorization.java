@@ -0,0 +1,134 @@
+package ru.mai.factorization.batch;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import ru.mai.cipher.utils.RSAUtils;
+import ru.mai.factorization.RSALatticeFactorization;
+import ru.mai.factorization.dividers.Dividers;
+import ru.mai.factorization.lattice.LatticeShape;
+import ru.mai.factorization.lattice.PreparedLattice;
+import ru.mai.factorization.reduction.LatticeReducer;
+import ru.mai.factorization.solver.RootSolver;
+
+/**
+ * Факторизация одного ключа по мере того, как становятся известны новые младшие биты d. Каждый шаг
+ * строит решетку заново, переиспользуя шаблон формы и границы X, Y, Z.
+ */
+public class StepwiseFactorization {
+
+  private static final Logger LOGGER = System.getLogger(StepwiseFactorization.class.getName());
+
+  private final int n;
+  private final BigInteger N;
+  private final BigInteger e;
+  private final BigDecimal delta;
+  private final LatticeShape shape;
+  private final LatticeReducer reducer;
+  private final RootSolver solver;
+  private final boolean prune;
+
+  private BigInteger d0;
+  private BigInteger M;
+  private Result found;
+
+  /**
+   * Результат шага.
+   *
+   * @param shape    форма решетки шага или null, если подходящей формы нет
+   * @param dividers делители N или null, если они не найдены
+   * @param reused   true, если делители найдены на одном из прежних шагов
+   */
+  public record Result(LatticeShape shape, Dividers dividers, boolean reused) {
+  }
+
+  /**
+   * Конструктор.
+   *
+   * @param n       параметр RSA
+   * @param N       параметр RSA
+   * @param e       параметр RSA
+   * @param delta   приближение d относительно N
+   * @param shape   форма решетки для всех шагов или null, чтобы подбирать ее на каждом шаге
+   * @param reducer редукция решетки
+   * @param solver  поиск корня y = p + q
+   * @param prune   удалять бесполезные сдвиги решетки
+   */
+  public StepwiseFactorization(
+      int n,
+      BigInteger N,
+      BigInteger e,
+      BigDecimal delta,
+      LatticeShape shape,
+      LatticeReducer reducer,
+      RootSolver solver,
+      boolean prune) {
+    this.n = n;
+    this.N = N;
+    this.e = e;
+    this.delta = delta;
+    this.shape = shape;
+    this.reducer = reducer;
+    this.solver = solver;
+    this.prune = prune;
+  }
+
+  /**
+   * Шаг с новыми известными младшими битами d.
+   *
+   * @param d0 младшие биты d
+   * @param M  число известных бит в виде 2^s
+   * @return результат шага
+   * @throws IOException          исключение при работе с внешними утилитами
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public synchronized Result update(BigInteger d0, BigInteger M)
+      throws IOException, InterruptedException {
+    if (this.M != null
+        && (M.mod(this.M).signum() != 0 || !d0.mod(this.M).equals(this.d0))) {
+      throw new IllegalArgumentException(
+          "Новые младшие биты d не согласуются с известными ранее.");
+    }
+
+    if (found != null) {
+      BigInteger d = e.modInverse(RSAUtils.phi(found.dividers().p(), found.dividers().q(), n));
+
+      if (!d.mod(M).equals(d0)) {
+        throw new IllegalArgumentException("Новые младшие биты не совпадают с найденным d.");
+      }
+
+      this.d0 = d0;
+      this.M = M;
+      return new Result(found.shape(), found.dividers(), true);
+    }
+
+    this.d0 = d0;
+    this.M = M;
+
+    LatticeShape current = shape != null
+        ? shape
+        : RSALatticeFactorization.tune(n, N, e, M, delta);
+
+    if (current == null) {
+      LOGGER.log(Level.INFO, "Для M = 2^{0} нет подходящей формы решетки", M.bitLength() - 1);
+      return new Result(null, null, false);
+    }
+
+    PreparedLattice prepared = RSALatticeFactorization.prepare(
+        current.n(), current.m(), current.t(), N, e, d0, M, delta, prune);
+    Dividers dividers = prepared == null
+        ? null
+        : RSALatticeFactorization.solve(prepared, reducer, solver);
+
+    if (dividers == null || !dividers.p().multiply(dividers.q()).equals(N)) {
+      LOGGER.log(Level.INFO, "Форма {0} при M = 2^{1} не дала делителей N",
+          current, M.bitLength() - 1);
+      return new Result(current, null, false);
+    }
+
+    found = new Result(current, dividers, false);
+    return found;
+  }
+}
@@ -0,0 +1,78 @@
+package ru.mai.factorization.lattice;
+
+import java.math.BigInteger;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+import ru.mai.factorization.polynomial.PackedTermMap;
+
+/**
+ * Уменьшение коэффициентов полиномов решетки перед редукцией.
+ *
+ * <p>Если полином обращается в ноль в корне по модулю M, то это же верно для полинома с
+ * коэффициентами, замененными вычетами по модулю M. Коэффициент при диагональном мономе
+ * сохраняется, чтобы не менялась диагональ (и определитель) треугольной решетки.
+ */
+public class CoefficientReduction {
+
+  /**
+   * Приведение коэффициентов к симметричным вычетам.
+   *
+   * @param poly      полином, обращающийся в ноль в корне по модулю modulus
+   * @param modulus   модуль
+   * @param diagonal  упакованный ключ монома, коэффициент при котором не изменяется
+   * @return полином с уменьшенными коэффициентами
+   */
+  public static MultivariatePolynomial reduce(
+      MultivariatePolynomial poly,
+      BigInteger modulus,
+      long diagonal) {
+    if (modulus.signum() <= 0) {
+      throw new IllegalArgumentException("Модуль должен быть положительным.");
+    }
+
+    PackedTermMap terms = poly.getPackedTerms();
+    BigInteger half = modulus.shiftRight(1);
+    MultivariatePolynomial result = new MultivariatePolynomial(terms.size());
+    PackedTermMap target = result.getPackedTerms();
+
+    for (int slot = 0; slot < terms.capacity(); slot++) {
+      BigInteger coeff = terms.valueAt(slot);
+
+      if (coeff == null) {
+        continue;
+      }
+
+      if (terms.keyAt(slot) != diagonal) {
+        coeff = coeff.mod(modulus);
+
+        if (coeff.compareTo(half) > 0) {
+          coeff = coeff.subtract(modulus);
+        }
+      }
+
+      if (coeff.signum() != 0) {
+        target.add(terms.keyAt(slot), coeff);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Наибольшая длина коэффициента полинома в битах.
+   *
+   * @param poly полином
+   * @return число бит
+   */
+  public static int maxBitLength(MultivariatePolynomial poly) {
+    PackedTermMap terms = poly.getPackedTerms();
+    int bits = 0;
+
+    for (int slot = 0; slot < terms.capacity(); slot++) {
+      if (terms.valueAt(slot) != null) {
+        bits = Math.max(bits, terms.valueAt(slot).bitLength());
+      }
+    }
+
+    return bits;
+  }
+}
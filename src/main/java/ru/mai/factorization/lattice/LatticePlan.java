@@ -0,0 +1,205 @@
+package ru.mai.factorization.lattice;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import ru.mai.factorization.comparator.MonomialComparator;
+import ru.mai.factorization.monomial.Monomial;
+import ru.mai.factorization.tuple.IndexTriple;
+import ru.mai.factorization.utils.FactorizationUtils;
+
+/**
+ * План задачи факторизации, вычисляемый до построения решетки.
+ *
+ * <p>Решетка треугольная, и диагональный элемент строки сдвига (k,i,j) равен
+ * e^(m-k) X^i Y^j Z^k, поэтому размерность, определитель и размеры столбцов известны по одним
+ * индексам сдвигов, без полиномиальной арифметики. Массив columnBits сравнивается по
+ * содержимому.
+ *
+ * @param dimension           размерность решетки
+ * @param columnBits          длина диагонального элемента столбца в битах, в порядке базиса
+ * @param determinant         определитель решетки
+ * @param determinantRootBits log2(det) / dimension
+ * @param modulusBits         log2(e^m)
+ * @param memoryBytes         оценка сверху памяти под матрицу и матрицу Грама
+ * @param estimatedSeconds    оценка времени LLL внутри JVM
+ */
+public record LatticePlan(
+    int dimension,
+    int[] columnBits,
+    BigInteger determinant,
+    double determinantRootBits,
+    double modulusBits,
+    long memoryBytes,
+    double estimatedSeconds) {
+
+  /**
+   * Допуск условия det^(1/w) < e^m по умолчанию как доля log2(e^m).
+   */
+  public static final double DEFAULT_TOLERANCE = 0.01;
+
+  private static final long BIG_INTEGER_OVERHEAD = 40;
+  private static final long REFERENCE_SIZE = 8;
+
+  /**
+   * Коэффициент оценки времени LLL, подобранный по решетке 45x45 из README (~7 с).
+   */
+  private static final double LLL_SECONDS_PER_UNIT = 0.6e-12;
+
+  /**
+   * Построение плана по индексам сдвигов.
+   *
+   * @param shifts индексы сдвигов (k,i,j)
+   * @param e      модуль уравнения
+   * @param m      параметр решетки
+   * @param X      масштабирование по X
+   * @param Y      масштабирование по Y
+   * @param Z      масштабирование по Z
+   * @return план
+   */
+  public static LatticePlan of(
+      List<IndexTriple> shifts,
+      BigInteger e,
+      int m,
+      BigInteger X,
+      BigInteger Y,
+      BigInteger Z) {
+    int w = shifts.size();
+
+    if (w == 0) {
+      throw new IllegalArgumentException("Решетка не содержит ни одного сдвига.");
+    }
+
+    List<IndexTriple> columns = shifts.stream()
+        .sorted(Comparator.comparing(
+            (IndexTriple shift) -> new Monomial(shift.i(), shift.j(), shift.k()),
+            new MonomialComparator()))
+        .toList();
+
+    long eExponent = 0;
+    long xExponent = 0;
+    long yExponent = 0;
+    long zExponent = 0;
+
+    for (IndexTriple shift : shifts) {
+      eExponent += m - shift.k();
+      xExponent += shift.i();
+      yExponent += shift.j();
+      zExponent += shift.k();
+    }
+
+    BigInteger determinant = e.pow(Math.toIntExact(eExponent))
+        .multiply(X.pow(Math.toIntExact(xExponent)))
+        .multiply(Y.pow(Math.toIntExact(yExponent)))
+        .multiply(Z.pow(Math.toIntExact(zExponent)));
+
+    double eBits = FactorizationUtils.log2(e);
+    double xBits = FactorizationUtils.log2(X);
+    double yBits = FactorizationUtils.log2(Y);
+    double zBits = FactorizationUtils.log2(Z);
+    double modulusBits = m * eBits;
+
+    int[] columnBits = columns.stream()
+        .mapToInt(shift -> (int) Math.ceil(
+            (m - shift.k()) * eBits + shift.i() * xBits + shift.j() * yBits + shift.k() * zBits))
+        .toArray();
+
+    // Под диагональю записи не превышают e^m, умноженного на масштаб столбца.
+    int[] entryBits = IntStream.range(0, w)
+        .map(j -> (int) Math.ceil(modulusBits + columnBits[j] - (m - columns.get(j).k()) * eBits))
+        .toArray();
+    int maxEntryBits = IntStream.of(entryBits).max().orElse(0);
+
+    long memory = (long) w * w * REFERENCE_SIZE * 2;
+
+    for (int j = 0; j < w; j++) {
+      memory += (w - j) * (BIG_INTEGER_OVERHEAD + entryBits[j] / 8 + 1);
+    }
+
+    memory += (long) w * w * (BIG_INTEGER_OVERHEAD + maxEntryBits / 4 + 1);
+
+    double seconds = LLL_SECONDS_PER_UNIT * Math.pow(w, 4) * maxEntryBits * (w + maxEntryBits);
+
+    return new LatticePlan(
+        w,
+        columnBits,
+        determinant,
+        FactorizationUtils.log2(determinant) / w,
+        modulusBits,
+        memory,
+        seconds
+    );
+  }
+
+  /**
+   * Запас условия det^(1/w) < e^m в битах, отрицательный при нарушении.
+   *
+   * @return log2(e^m) - log2(det) / w
+   */
+  public double marginBits() {
+    return modulusBits - determinantRootBits;
+  }
+
+  /**
+   * Запас условия Хоугрейва-Грэма для кратчайшего вектора ||b1|| ~ det^(1/w) < e^m / sqrt(w).
+   *
+   * @return запас в битах, отрицательный при нарушении
+   */
+  public double howgraveGrahamMarginBits() {
+    return marginBits() - Math.log(dimension) / Math.log(2) / 2;
+  }
+
+  /**
+   * Проверка, что решетка может дать корень.
+   *
+   * @param tolerance допустимое превышение det^(1/w) над e^m как доля log2(e^m)
+   * @return true, если условие выполнено с учетом допуска
+   */
+  public boolean isFeasible(double tolerance) {
+    return marginBits() + tolerance * modulusBits > 0;
+  }
+
+  /**
+   * Подробности плана: длины всех столбцов и точный определитель.
+   *
+   * @return описание столбцов и определителя
+   */
+  public String details() {
+    return "длины столбцов " + Arrays.toString(columnBits) + " бит, det = " + determinant;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof LatticePlan plan
+        && dimension == plan.dimension
+        && Arrays.equals(columnBits, plan.columnBits)
+        && determinant.equals(plan.determinant)
+        && Double.compare(determinantRootBits, plan.determinantRootBits) == 0
+        && Double.compare(modulusBits, plan.modulusBits) == 0
+        && memoryBytes == plan.memoryBytes
+        && Double.compare(estimatedSeconds, plan.estimatedSeconds) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Objects.hash(dimension, determinant, determinantRootBits, modulusBits,
+        memoryBytes, estimatedSeconds) + Arrays.hashCode(columnBits);
+  }
+
+  @Override
+  public String toString() {
+    IntSummaryStatistics columns = IntStream.of(columnBits).summaryStatistics();
+
+    return String.format(
+        "размерность %d, log2(det)/w = %.1f, log2(e^m) = %.1f, запас %.1f бит "
+            + "(Хоугрейв-Грэм %.1f бит), det: %d бит, столбцы: %d..%d бит (сумма %d), "
+            + "память ~%d МБ, LLL ~%.1f с",
+        dimension, determinantRootBits, modulusBits, marginBits(), howgraveGrahamMarginBits(),
+        determinant.bitLength(), columns.getMin(), columns.getMax(), columns.getSum(),
+        memoryBytes >> 20, estimatedSeconds);
+  }
+}
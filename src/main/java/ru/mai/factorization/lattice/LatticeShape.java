@@ -0,0 +1,53 @@
+package ru.mai.factorization.lattice;
+
+import java.util.ArrayList;
+import java.util.List;
+import ru.mai.factorization.tuple.IndexTriple;
+
+/**
+ * Форма решетки: параметры, от которых зависят сдвиги и базис, но не коэффициенты.
+ *
+ * @param n размер полиномов из публичного ключа
+ * @param m параметр решетки. максимальная степень базового многочлена F(x, y, z)
+ * @param t параметр решетки. максимальная степень дополнительной переменной y
+ */
+public record LatticeShape(int n, int m, int t) {
+
+  /**
+   * Размерность решетки: (t+1) сдвигов по y и (m-k)(n-1) сдвигов по x для каждого k = 0..m.
+   *
+   * @return число строк (и столбцов) решетки
+   */
+  public int dimension() {
+    return (m + 1) * (t + 1) + (n - 1) * m * (m + 1) / 2;
+  }
+
+  /**
+   * Генерация индексов сдвигов (k,i,j) в порядке, указанном в статье.
+   *
+   * @return упорядоченный список индексов
+   */
+  public List<IndexTriple> shifts() {
+    int r = n - 1;
+    List<IndexTriple> shifts = new ArrayList<>();
+
+    for (int k = 0; k <= m; k++) {
+      for (int j = 0; j <= t; j++) {
+        shifts.add(new IndexTriple(k, 0, j));
+      }
+
+      for (int i = 1; i <= m - k; i++) {
+        for (int j = 0; j <= r - 1; j++) {
+          shifts.add(new IndexTriple(k, i, j));
+        }
+      }
+    }
+
+    return shifts;
+  }
+
+  @Override
+  public String toString() {
+    return "n=" + n + ", m=" + m + ", t=" + t;
+  }
+}
@@ -0,0 +1,256 @@
+package ru.mai.factorization.lattice;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import ru.mai.factorization.comparator.MonomialComparator;
+import ru.mai.factorization.monomial.Monomial;
+import ru.mai.factorization.polynomial.KroneckerSubstitution;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+import ru.mai.factorization.polynomial.PackedTermMap;
+import ru.mai.factorization.tuple.IndexTriple;
+import ru.mai.factorization.utils.Polynomial;
+
+/**
+ * Шаблон решетки для формы (n, m, t).
+ *
+ * <p>Сдвиги (k,i,j), базис мономов и то, в какой столбец после умножения на x^i y^j и замены
+ * z = xy^r попадает каждый член F^k, зависят только от формы, но не от N, c и e. Шаблон один раз
+ * строится символически по F с единичными коэффициентами (все коэффициенты положительны, поэтому
+ * ни один член не сокращается), а задача подставляет в него свои числовые коэффициенты F^k.
+ */
+public class LatticeTemplate {
+
+  private static final int CACHE_SIZE = 16;
+
+  /**
+   * Кэш шаблонов для недавно использованных форм.
+   */
+  private static final Map<LatticeShape, LatticeTemplate> CACHE = Collections.synchronizedMap(
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LatticeShape, LatticeTemplate> eldest) {
+          return size() > CACHE_SIZE;
+        }
+      });
+
+  private final LatticeShape shape;
+  private final List<IndexTriple> shifts;
+  private final List<Monomial> basis;
+
+  /**
+   * Ключи членов F^k для каждого k.
+   */
+  private final long[][] sourceKeys;
+
+  /**
+   * Столбец, в который попадает каждый член F^k, для каждой строки.
+   */
+  private final int[][] targetColumns;
+
+  private LatticeTemplate(LatticeShape shape) {
+    this(shape, shape.shifts(), sourceKeys(shape));
+  }
+
+  private LatticeTemplate(LatticeShape shape, List<IndexTriple> shifts, long[][] sourceKeys) {
+    int r = shape.n() - 1;
+
+    this.shape = shape;
+    this.shifts = shifts;
+    this.sourceKeys = sourceKeys;
+    this.basis = IntStream.range(0, shifts.size())
+        .parallel()
+        .mapToObj(idx -> shiftKeys(shifts.get(idx), r))
+        .flatMapToLong(Arrays::stream)
+        .distinct()
+        .mapToObj(PackedTermMap::unpack)
+        .sorted(new MonomialComparator())
+        .toList();
+
+    Map<Monomial, Integer> columns = new LinkedHashMap<>();
+
+    for (int j = 0; j < basis.size(); j++) {
+      columns.put(basis.get(j), j);
+    }
+
+    this.targetColumns = IntStream.range(0, shifts.size())
+        .parallel()
+        .mapToObj(idx -> Arrays.stream(shiftKeys(shifts.get(idx), r))
+            .mapToInt(key -> columns.get(PackedTermMap.unpack(key)))
+            .toArray())
+        .toArray(int[][]::new);
+  }
+
+  /**
+   * Шаблон для формы решетки, из кэша или построенный заново.
+   *
+   * @param shape форма решетки
+   * @return шаблон
+   */
+  public static LatticeTemplate of(LatticeShape shape) {
+    return CACHE.computeIfAbsent(shape, LatticeTemplate::new);
+  }
+
+  /**
+   * Шаблон без бесполезных сдвигов.
+   *
+   * <p>Сдвиг (k,i,j) бесполезен, если его диагональный элемент e^(m-k) X^i Y^j Z^k больше e^m,
+   * то есть X^i Y^j Z^k > e^k: такая строка увеличивает det^(1/w) и только ухудшает условие
+   * det^(1/w) < e^m. Строка удаляется вместе со своим диагональным столбцом, если этот моном не
+   * встречается в оставшихся строках, поэтому решетка остается квадратной и треугольной. Сдвиги
+   * просматриваются от старшего диагонального монома к младшему: моном строки может встретиться
+   * только в строках с большим диагональным мономом, и для них решение уже принято.
+   *
+   * @param e модуль уравнения
+   * @param X масштабирование по X
+   * @param Y масштабирование по Y
+   * @param Z масштабирование по Z
+   * @return шаблон без бесполезных сдвигов или этот же шаблон, если удалить нечего
+   */
+  public LatticeTemplate prune(BigInteger e, BigInteger X, BigInteger Y, BigInteger Z) {
+    int[] uses = new int[basis.size()];
+    int[] pivots = new int[shifts.size()];
+
+    for (int idx = 0; idx < shifts.size(); idx++) {
+      for (int column : targetColumns[idx]) {
+        uses[column]++;
+      }
+
+      pivots[idx] = IntStream.of(targetColumns[idx]).max().orElseThrow();
+    }
+
+    Integer[] order = IntStream.range(0, shifts.size())
+        .boxed()
+        .sorted(Comparator.comparingInt((Integer idx) -> pivots[idx]).reversed())
+        .toArray(Integer[]::new);
+    boolean[] dropped = new boolean[shifts.size()];
+
+    for (int idx : order) {
+      IndexTriple shift = shifts.get(idx);
+      BigInteger diagonal = X.pow(shift.i()).multiply(Y.pow(shift.j())).multiply(Z.pow(shift.k()));
+
+      if (uses[pivots[idx]] == 1 && diagonal.compareTo(e.pow(shift.k())) > 0) {
+        dropped[idx] = true;
+
+        for (int column : targetColumns[idx]) {
+          uses[column]--;
+        }
+      }
+    }
+
+    List<IndexTriple> kept = IntStream.range(0, shifts.size())
+        .filter(idx -> !dropped[idx])
+        .mapToObj(shifts::get)
+        .toList();
+
+    return kept.size() == shifts.size()
+        ? this
+        : new LatticeTemplate(shape, kept, sourceKeys);
+  }
+
+  /**
+   * Строка решетки для сдвига с заданным номером.
+   *
+   * @param Fk      числовые степени F^k * e^(m-k), индекс - k
+   * @param index   номер сдвига
+   * @param lattice масштабированная решетка над базисом шаблона
+   * @return масштабированная строка решетки
+   */
+  public BigInteger[] row(MultivariatePolynomial[] Fk, int index, ScaledLattice lattice) {
+    IndexTriple shift = shifts.get(index);
+    PackedTermMap terms = Fk[shift.k()].getPackedTerms();
+    long[] keys = sourceKeys[shift.k()];
+    int[] columns = targetColumns[index];
+    BigInteger[] row = new BigInteger[basis.size()];
+    Arrays.fill(row, BigInteger.ZERO);
+
+    for (int s = 0; s < keys.length; s++) {
+      BigInteger coeff = terms.get(keys[s]);
+
+      if (coeff != null) {
+        row[columns[s]] = row[columns[s]].add(coeff);
+      }
+    }
+
+    for (int j = 0; j < row.length; j++) {
+      if (row[j].signum() != 0) {
+        row[j] = row[j].multiply(lattice.getScale(j));
+      } else {
+        row[j] = BigInteger.ZERO;
+      }
+    }
+
+    return row;
+  }
+
+  /**
+   * Матрица решетки, строки строятся параллельно.
+   *
+   * @param Fk      числовые степени F^k * e^(m-k), индекс - k
+   * @param lattice масштабированная решетка над базисом шаблона
+   * @return матрица, готовая для LLL
+   */
+  public BigInteger[][] matrix(MultivariatePolynomial[] Fk, ScaledLattice lattice) {
+    return IntStream.range(0, shifts.size())
+        .parallel()
+        .mapToObj(idx -> row(Fk, idx, lattice))
+        .toArray(BigInteger[][]::new);
+  }
+
+  public LatticeShape getShape() {
+    return shape;
+  }
+
+  public List<IndexTriple> getShifts() {
+    return shifts;
+  }
+
+  public List<Monomial> getBasis() {
+    return basis;
+  }
+
+  /**
+   * Ключи мономов после умножения членов F^k на x^i y^j и замены z = xy^r, в порядке
+   * {@link #sourceKeys}.
+   */
+  private long[] shiftKeys(IndexTriple shift, int r) {
+    long[] keys = sourceKeys[shift.k()];
+    long[] result = new long[keys.length];
+
+    for (int s = 0; s < keys.length; s++) {
+      int x = PackedTermMap.x(keys[s]) + shift.i();
+      int y = PackedTermMap.y(keys[s]) + shift.j();
+      int q = Math.min(x, y / r);
+      result[s] = PackedTermMap.pack(x - q, y - q * r, PackedTermMap.z(keys[s]) + q);
+    }
+
+    return result;
+  }
+
+  /**
+   * Ключи членов F^k, k = 0..m, по F с единичными коэффициентами.
+   */
+  private static long[][] sourceKeys(LatticeShape shape) {
+    BigInteger[] H = new BigInteger[shape.n()];
+    Arrays.fill(H, BigInteger.ONE);
+
+    MultivariatePolynomial[] powers = KroneckerSubstitution.powers(
+        Polynomial.buildF(H, BigInteger.ONE), shape.m());
+
+    return Arrays.stream(powers).map(LatticeTemplate::keys).toArray(long[][]::new);
+  }
+
+  private static long[] keys(MultivariatePolynomial poly) {
+    PackedTermMap terms = poly.getPackedTerms();
+
+    return IntStream.range(0, terms.capacity())
+        .filter(slot -> terms.valueAt(slot) != null)
+        .mapToLong(terms::keyAt)
+        .toArray();
+  }
+}
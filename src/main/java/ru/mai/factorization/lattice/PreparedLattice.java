@@ -0,0 +1,89 @@
+package ru.mai.factorization.lattice;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+import ru.mai.factorization.reduction.impl.FplllReducer;
+
+/**
+ * Решетка задачи, подготовленная к редукции.
+ *
+ * <p>Содержит шаблон формы, числовые степени F^k * e^(m-k) и таблицу масштабов столбцов. Матрица
+ * строится при первом обращении и сохраняется, поэтому ее можно построить заранее, пока
+ * редукция предыдущей задачи еще идет, либо не строить вовсе и передать строки потоком.
+ */
+public class PreparedLattice {
+
+  private final BigInteger N;
+  private final BigInteger modulus;
+  private final LatticeTemplate template;
+  private final MultivariatePolynomial[] Fk;
+  private final ScaledLattice lattice;
+  private BigInteger[][] matrix;
+
+  /**
+   * Конструктор.
+   *
+   * @param N        модуль RSA
+   * @param modulus  модуль решетки e^m
+   * @param template шаблон решетки
+   * @param Fk       степени F^k * e^(m-k), индекс - k
+   * @param lattice  масштабированная решетка над базисом шаблона
+   */
+  public PreparedLattice(
+      BigInteger N,
+      BigInteger modulus,
+      LatticeTemplate template,
+      MultivariatePolynomial[] Fk,
+      ScaledLattice lattice) {
+    this.N = N;
+    this.modulus = modulus;
+    this.template = template;
+    this.Fk = Fk;
+    this.lattice = lattice;
+  }
+
+  /**
+   * Матрица решетки, строится при первом обращении.
+   *
+   * @return матрица, готовая для LLL
+   */
+  public synchronized BigInteger[][] matrix() {
+    if (matrix == null) {
+      matrix = template.matrix(Fk, lattice);
+    }
+
+    return matrix;
+  }
+
+  /**
+   * Запись строк решетки в формате fplll по одной, в порядке сдвигов, без построения матрицы.
+   *
+   * @param writer поток для записи
+   * @throws IOException исключение при записи
+   */
+  public void writeTo(Writer writer) throws IOException {
+    int rows = template.getShifts().size();
+
+    for (int i = 0; i < rows; i++) {
+      FplllReducer.writeRow(writer, template.row(Fk, i, lattice), i, rows);
+    }
+  }
+
+  public BigInteger getN() {
+    return N;
+  }
+
+  public BigInteger getModulus() {
+    return modulus;
+  }
+
+  public LatticeShape getShape() {
+    return template.getShape();
+  }
+
+  public ScaledLattice getLattice() {
+    return lattice;
+  }
+}
@@ -0,0 +1,101 @@
+package ru.mai.factorization.lattice;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.stream.IntStream;
+import ru.mai.factorization.monomial.Monomial;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+
+/**
+ * Масштабированная решетка над базисом мономов.
+ *
+ * <p>Множитель X^a Y^b Z^c каждого столбца вычисляется один раз по таблицам степеней.
+ */
+public class ScaledLattice {
+
+  private final List<Monomial> basis;
+  private final BigInteger[] scales;
+
+  /**
+   * Конструктор.
+   *
+   * @param basis базис решетки
+   * @param X     масштабирование по X
+   * @param Y     масштабирование по Y
+   * @param Z     масштабирование по Z
+   */
+  public ScaledLattice(List<Monomial> basis, BigInteger X, BigInteger Y, BigInteger Z) {
+    this.basis = basis;
+
+    int maxX = 0;
+    int maxY = 0;
+    int maxZ = 0;
+
+    for (Monomial monomial : basis) {
+      maxX = Math.max(maxX, monomial.x());
+      maxY = Math.max(maxY, monomial.y());
+      maxZ = Math.max(maxZ, monomial.z());
+    }
+
+    BigInteger[] xPowers = powers(X, maxX);
+    BigInteger[] yPowers = powers(Y, maxY);
+    BigInteger[] zPowers = powers(Z, maxZ);
+
+    this.scales = IntStream.range(0, basis.size())
+        .parallel()
+        .mapToObj(j -> {
+          Monomial monomial = basis.get(j);
+          return xPowers[monomial.x()]
+              .multiply(yPowers[monomial.y()])
+              .multiply(zPowers[monomial.z()]);
+        })
+        .toArray(BigInteger[]::new);
+  }
+
+  /**
+   * Перевод вектора в полином с размасштабированием.
+   *
+   * @param vector вектор решетки
+   * @return полином
+   */
+  public MultivariatePolynomial unscale(BigInteger[] vector) {
+    MultivariatePolynomial poly = new MultivariatePolynomial(vector.length);
+
+    for (int j = 0; j < vector.length; j++) {
+      if (vector[j].signum() != 0) {
+        poly.addTerm(vector[j].divide(scales[j]), basis.get(j));
+      }
+    }
+
+    return poly;
+  }
+
+  public List<Monomial> getBasis() {
+    return basis;
+  }
+
+  /**
+   * Множитель масштабирования столбца.
+   *
+   * @param column номер столбца
+   * @return X^a Y^b Z^c для монома столбца
+   */
+  public BigInteger getScale(int column) {
+    return scales[column];
+  }
+
+  public int dimension() {
+    return basis.size();
+  }
+
+  private static BigInteger[] powers(BigInteger base, int max) {
+    BigInteger[] result = new BigInteger[max + 1];
+    result[0] = BigInteger.ONE;
+
+    for (int k = 1; k <= max; k++) {
+      result[k] = result[k - 1].multiply(base);
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,140 @@
+package ru.mai.factorization.lattice;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+
+/**
+ * Короткие векторы редуцированного базиса в виде полиномов.
+ *
+ * <p>Норма каждого вектора считается один раз, по масштабированной строке: это норма
+ * g(xX, yY, zZ), которую ограничивает условие Хоугрейва-Грэма ||g(xX, yY, zZ)|| < e^m / sqrt(w).
+ * В список попадают векторы, выполняющие это условие, а если их меньше минимума, то и следующие
+ * по норме. Полином строится из вектора только при первом обращении к элементу списка, поэтому
+ * размасштабируются лишь строки, которые действительно использует поиск корня.
+ */
+public class ShortVectors extends AbstractList<MultivariatePolynomial> {
+
+  private final BigInteger[][] vectors;
+  private final BigInteger[] norms;
+  private final ScaledLattice lattice;
+  private final MultivariatePolynomial[] polys;
+  private final int satisfying;
+
+  private ShortVectors(
+      BigInteger[][] vectors,
+      BigInteger[] norms,
+      ScaledLattice lattice,
+      int satisfying) {
+    this.vectors = vectors;
+    this.norms = norms;
+    this.lattice = lattice;
+    this.polys = new MultivariatePolynomial[vectors.length];
+    this.satisfying = satisfying;
+  }
+
+  /**
+   * Отбор коротких векторов.
+   *
+   * @param reduced  редуцированный базис
+   * @param lattice  масштабированная решетка, по которой строился базис
+   * @param modulus  модуль e^m
+   * @param minimum  минимальное число векторов, нужное поиску корня
+   * @return векторы в порядке возрастания нормы
+   */
+  public static ShortVectors select(
+      BigInteger[][] reduced,
+      ScaledLattice lattice,
+      BigInteger modulus,
+      int minimum) {
+    BigInteger[] norms = Arrays.stream(reduced)
+        .parallel()
+        .map(ShortVectors::normSquared)
+        .toArray(BigInteger[]::new);
+
+    // ||b||^2 * w < (e^m)^2
+    BigInteger bound = modulus.multiply(modulus);
+    BigInteger w = BigInteger.valueOf(lattice.dimension());
+
+    int[] order = IntStream.range(0, reduced.length)
+        .filter(i -> norms[i].signum() != 0)
+        .boxed()
+        .sorted(Comparator.comparing(i -> norms[i]))
+        .mapToInt(Integer::intValue)
+        .toArray();
+
+    int satisfying = (int) Arrays.stream(order)
+        .filter(i -> norms[i].multiply(w).compareTo(bound) < 0)
+        .count();
+    int count = Math.min(order.length, Math.max(satisfying, minimum));
+
+    return new ShortVectors(
+        Arrays.stream(order, 0, count).mapToObj(i -> reduced[i]).toArray(BigInteger[][]::new),
+        Arrays.stream(order, 0, count).mapToObj(i -> norms[i]).toArray(BigInteger[]::new),
+        lattice,
+        satisfying);
+  }
+
+  /**
+   * Полином i-го по норме вектора, строится при первом обращении.
+   *
+   * @param index номер вектора
+   * @return полином
+   */
+  @Override
+  public synchronized MultivariatePolynomial get(int index) {
+    if (polys[index] == null) {
+      polys[index] = lattice.unscale(vectors[index]);
+    }
+
+    return polys[index];
+  }
+
+  @Override
+  public int size() {
+    return vectors.length;
+  }
+
+  /**
+   * Квадрат нормы масштабированного вектора.
+   *
+   * @param index номер вектора
+   * @return ||g(xX, yY, zZ)||^2
+   */
+  public BigInteger normSquared(int index) {
+    return norms[index];
+  }
+
+  /**
+   * Число векторов, выполняющих условие Хоугрейва-Грэма.
+   *
+   * @return число векторов
+   */
+  public int satisfyingBound() {
+    return satisfying;
+  }
+
+  /**
+   * Число уже построенных полиномов.
+   *
+   * @return число размасштабированных векторов
+   */
+  public synchronized int unscaled() {
+    return (int) Arrays.stream(polys).filter(poly -> poly != null).count();
+  }
+
+  private static BigInteger normSquared(BigInteger[] vector) {
+    BigInteger normSquared = BigInteger.ZERO;
+
+    for (BigInteger coeff : vector) {
+      if (coeff.signum() != 0) {
+        normSquared = normSquared.add(coeff.multiply(coeff));
+      }
+    }
+
+    return normSquared;
+  }
+}
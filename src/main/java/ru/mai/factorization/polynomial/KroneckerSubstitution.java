@@ -0,0 +1,199 @@
+package ru.mai.factorization.polynomial;
+
+import java.math.BigInteger;
+
+/**
+ * Умножение полиномов от (x,y,z) подстановкой Кронекера.
+ *
+ * <p>Моном x^a y^b z^c переводится в степень s^((a*Dy + b)*Dz + c) одной переменной, где
+ * Dy и Dz - границы степеней результата, поэтому произведение мономов - это сумма индексов.
+ * Коэффициенты накапливаются в плотном массиве по этим индексам без хеширования и объектов
+ * мономов, а в {@link PackedTermMap} переводятся один раз, в конце.
+ */
+public class KroneckerSubstitution {
+
+  private static final int MAX_DENSITY_RATIO = 4;
+
+  /**
+   * Проверка, что плотный массив для произведения не слишком велик по сравнению с объемом работы.
+   *
+   * @param a первый полином
+   * @param b второй полином
+   * @return true, если умножение через плотный массив выгоднее хеш-таблицы
+   */
+  public static boolean isWorthwhile(MultivariatePolynomial a, MultivariatePolynomial b) {
+    PackedTermMap left = a.getPackedTerms();
+    PackedTermMap right = b.getPackedTerms();
+    long pairs = (long) left.size() * right.size();
+
+    if (pairs == 0) {
+      return false;
+    }
+
+    int[] da = degrees(left);
+    int[] db = degrees(right);
+    long slots = (long) (da[0] + db[0] + 1) * (da[1] + db[1] + 1) * (da[2] + db[2] + 1);
+
+    return slots <= MAX_DENSITY_RATIO * pairs && slots <= Integer.MAX_VALUE;
+  }
+
+  /**
+   * Умножение полиномов.
+   *
+   * @param a первый полином
+   * @param b второй полином
+   * @return произведение
+   */
+  public static MultivariatePolynomial multiply(
+      MultivariatePolynomial a,
+      MultivariatePolynomial b) {
+    PackedTermMap left = a.getPackedTerms();
+    PackedTermMap right = b.getPackedTerms();
+    int[] da = degrees(left);
+    int[] db = degrees(right);
+    int dy = da[1] + db[1] + 1;
+    int dz = da[2] + db[2] + 1;
+    BigInteger[] dense = new BigInteger[(da[0] + db[0] + 1) * dy * dz];
+
+    int[] rightIndex = new int[right.size()];
+    BigInteger[] rightCoeff = new BigInteger[right.size()];
+    flatten(right, dy, dz, rightIndex, rightCoeff);
+
+    for (int slot = 0; slot < left.capacity(); slot++) {
+      BigInteger coeff = left.valueAt(slot);
+
+      if (coeff != null) {
+        multiplyAdd(dense, index(left.keyAt(slot), dy, dz), coeff, rightIndex, rightCoeff);
+      }
+    }
+
+    return unflatten(dense, dy, dz);
+  }
+
+  /**
+   * Все степени полинома A^0, A^1, ..., A^exp.
+   *
+   * <p>Каждая следующая степень получается из предыдущей умножением на A в общем плотном
+   * представлении, поэтому стоимость шага пропорциональна размеру предыдущей степени.
+   *
+   * @param a   полином
+   * @param exp максимальная степень
+   * @return массив степеней
+   */
+  public static MultivariatePolynomial[] powers(MultivariatePolynomial a, int exp) {
+    if (exp < 0) {
+      throw new IllegalArgumentException("Отрицательная степень не поддерживается.");
+    }
+
+    MultivariatePolynomial[] result = new MultivariatePolynomial[exp + 1];
+    PackedTermMap base = a.getPackedTerms();
+    int[] d = degrees(base);
+    int dy = exp * d[1] + 1;
+    int dz = exp * d[2] + 1;
+    int length = (exp * d[0] + 1) * dy * dz;
+
+    int[] baseIndex = new int[base.size()];
+    BigInteger[] baseCoeff = new BigInteger[base.size()];
+    flatten(base, dy, dz, baseIndex, baseCoeff);
+
+    BigInteger[] current = new BigInteger[length];
+    current[0] = BigInteger.ONE;
+    result[0] = unflatten(current, dy, dz);
+
+    for (int k = 1; k <= exp; k++) {
+      BigInteger[] next = new BigInteger[length];
+
+      for (int i = 0; i < length; i++) {
+        if (current[i] != null && current[i].signum() != 0) {
+          multiplyAdd(next, i, current[i], baseIndex, baseCoeff);
+        }
+      }
+
+      current = next;
+      result[k] = unflatten(current, dy, dz);
+    }
+
+    return result;
+  }
+
+  /**
+   * Возведение полинома в степень.
+   *
+   * @param a   полином
+   * @param exp неотрицательная степень
+   * @return результат возведения в степень
+   */
+  public static MultivariatePolynomial pow(MultivariatePolynomial a, int exp) {
+    return powers(a, exp)[exp];
+  }
+
+  private static void multiplyAdd(
+      BigInteger[] dense,
+      int offset,
+      BigInteger coeff,
+      int[] index,
+      BigInteger[] coeffs) {
+    for (int j = 0; j < index.length; j++) {
+      BigInteger product = coeff.multiply(coeffs[j]);
+      int target = offset + index[j];
+      dense[target] = dense[target] == null ? product : dense[target].add(product);
+    }
+  }
+
+  private static void flatten(
+      PackedTermMap terms,
+      int dy,
+      int dz,
+      int[] index,
+      BigInteger[] coeffs) {
+    int n = 0;
+
+    for (int slot = 0; slot < terms.capacity(); slot++) {
+      if (terms.valueAt(slot) != null) {
+        index[n] = index(terms.keyAt(slot), dy, dz);
+        coeffs[n] = terms.valueAt(slot);
+        n++;
+      }
+    }
+  }
+
+  private static MultivariatePolynomial unflatten(BigInteger[] dense, int dy, int dz) {
+    int count = 0;
+
+    for (BigInteger coeff : dense) {
+      if (coeff != null && coeff.signum() != 0) {
+        count++;
+      }
+    }
+
+    MultivariatePolynomial result = new MultivariatePolynomial(count);
+    PackedTermMap terms = result.getPackedTerms();
+
+    for (int i = 0; i < dense.length; i++) {
+      if (dense[i] != null && dense[i].signum() != 0) {
+        terms.add(PackedTermMap.pack(i / dz / dy, (i / dz) % dy, i % dz), dense[i]);
+      }
+    }
+
+    return result;
+  }
+
+  private static int index(long key, int dy, int dz) {
+    return (PackedTermMap.x(key) * dy + PackedTermMap.y(key)) * dz + PackedTermMap.z(key);
+  }
+
+  private static int[] degrees(PackedTermMap terms) {
+    int[] degrees = new int[3];
+
+    for (int slot = 0; slot < terms.capacity(); slot++) {
+      if (terms.valueAt(slot) != null) {
+        long key = terms.keyAt(slot);
+        degrees[0] = Math.max(degrees[0], PackedTermMap.x(key));
+        degrees[1] = Math.max(degrees[1], PackedTermMap.y(key));
+        degrees[2] = Math.max(degrees[2], PackedTermMap.z(key));
+      }
+    }
+
+    return degrees;
+  }
+}
@@ -1,16 +1,41 @@
 package ru.mai.factorization.polynomial;
 
 import java.math.BigInteger;
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import ru.mai.factorization.monomial.Monomial;
 
 /**
  * Класс для работы с полиномами.
+ *
+ * <p>Члены хранятся в {@link PackedTermMap} с упакованными ключами; поле {@link #terms} - это
+ * представление того же хранилища в виде Map, для кода, которому удобнее работать с мономами.
  */
 public class MultivariatePolynomial {
 
-  public final Map<Monomial, BigInteger> terms = new HashMap<>();
+  private final PackedTermMap packed;
+
+  public final Map<Monomial, BigInteger> terms = new TermsView();
+
+  /**
+   * Конструктор нулевого полинома.
+   */
+  public MultivariatePolynomial() {
+    this.packed = new PackedTermMap();
+  }
+
+  /**
+   * Конструктор нулевого полинома, рассчитанного на заданное число членов.
+   *
+   * @param expectedSize ожидаемое число членов
+   */
+  public MultivariatePolynomial(int expectedSize) {
+    this.packed = new PackedTermMap(expectedSize);
+  }
 
   /**
    * Добавление нового монома к полиному.
@@ -19,7 +44,7 @@ public class MultivariatePolynomial {
    * @param m моном
    */
   public void addTerm(BigInteger coeff, Monomial m) {
-    terms.merge(m, coeff, BigInteger::add);
+    packed.add(PackedTermMap.pack(m), coeff);
   }
 
   /**
@@ -29,25 +54,42 @@ public class MultivariatePolynomial {
    * @param coeff коэффициент
    */
   public void addToCoeff(Monomial m, BigInteger coeff) {
-    this.terms.merge(m, coeff, BigInteger::add);
-
-    if (this.terms.get(m).equals(BigInteger.ZERO)) {
-      this.terms.remove(m);
-    }
+    packed.addToCoeff(PackedTermMap.pack(m), coeff);
   }
 
   /**
    * Умножение полиномов.
    *
+   * <p>Если плотный массив подстановки Кронекера ненамного больше числа пар членов, коэффициенты
+   * накапливаются в нем без хеш-таблицы.
+   *
    * @param other полином
    * @return результат умножения
    */
   public MultivariatePolynomial multiply(MultivariatePolynomial other) {
-    MultivariatePolynomial res = new MultivariatePolynomial();
+    if (KroneckerSubstitution.isWorthwhile(this, other)) {
+      return KroneckerSubstitution.multiply(this, other);
+    }
+
+    long pairs = (long) packed.size() * other.packed.size();
+    MultivariatePolynomial res = new MultivariatePolynomial(
+        (int) Math.min(pairs, 4L * (packed.size() + other.packed.size())));
 
-    for (var a : terms.entrySet()) {
-      for (var b : other.terms.entrySet()) {
-        res.addTerm(a.getValue().multiply(b.getValue()), a.getKey().add(b.getKey()));
+    for (int a = 0; a < packed.capacity(); a++) {
+      BigInteger left = packed.valueAt(a);
+
+      if (left == null) {
+        continue;
+      }
+
+      long key = packed.keyAt(a);
+
+      for (int b = 0; b < other.packed.capacity(); b++) {
+        BigInteger right = other.packed.valueAt(b);
+
+        if (right != null) {
+          res.packed.add(key + other.packed.keyAt(b), left.multiply(right));
+        }
       }
     }
 
@@ -63,12 +105,15 @@ public class MultivariatePolynomial {
    * @return результат умножения
    */
   public MultivariatePolynomial multiplyMonomial(int dx, int dy, int dz) {
-    MultivariatePolynomial res = new MultivariatePolynomial();
+    MultivariatePolynomial res = new MultivariatePolynomial(packed.size());
+    long shift = PackedTermMap.pack(dx, dy, dz);
+
+    for (int i = 0; i < packed.capacity(); i++) {
+      BigInteger coeff = packed.valueAt(i);
 
-    for (var entry : this.terms.entrySet()) {
-      Monomial m = entry.getKey();
-      BigInteger coeff = entry.getValue();
-      res.addTerm(coeff, new Monomial(m.x() + dx, m.y() + dy, m.z() + dz));
+      if (coeff != null) {
+        res.packed.add(packed.keyAt(i) + shift, coeff);
+      }
     }
 
     return res;
@@ -81,17 +126,25 @@ public class MultivariatePolynomial {
    * @return результат умножения
    */
   public MultivariatePolynomial multiply(BigInteger scalar) {
-    MultivariatePolynomial res = new MultivariatePolynomial();
+    MultivariatePolynomial res = new MultivariatePolynomial(packed.size());
 
-    for (var e : terms.entrySet()) {
-      res.addTerm(e.getValue().multiply(scalar), e.getKey());
+    for (int i = 0; i < packed.capacity(); i++) {
+      BigInteger coeff = packed.valueAt(i);
+
+      if (coeff != null) {
+        res.packed.add(packed.keyAt(i), coeff.multiply(scalar));
+      }
     }
 
     return res;
   }
 
   /**
-   * Возведение монома в степень с использованием быстрого возведения в степень.
+   * Возведение монома в степень.
+   *
+   * <p>Степень строится последовательным умножением на исходный полином в плотном представлении
+   * подстановки Кронекера: для разреженного F это линейно по размеру результата, в отличие от
+   * возведения в квадрат, где число пар членов растет квадратично.
    *
    * @param exp степень
    * @return результат возведения в степень
@@ -101,31 +154,109 @@ public class MultivariatePolynomial {
       throw new IllegalArgumentException("Отрицательная степень не поддерживается.");
     }
 
-    MultivariatePolynomial result = new MultivariatePolynomial();
-    result.addTerm(BigInteger.ONE, new Monomial(0, 0, 0));
-
-    MultivariatePolynomial base = new MultivariatePolynomial();
-    base.terms.putAll(this.terms);
-
-    while (exp > 0) {
-      if ((exp & 1) == 1) {
-        result = result.multiply(base);
-      }
-      base = base.multiply(base);
-      exp >>= 1;
-    }
-
-    return result;
+    return KroneckerSubstitution.pow(this, exp);
   }
 
   public Map<Monomial, BigInteger> getTerms() {
     return terms;
   }
 
+  /**
+   * Хранилище членов с упакованными ключами для обхода без создания мономов.
+   *
+   * @return хранилище членов
+   */
+  public PackedTermMap getPackedTerms() {
+    return packed;
+  }
+
   @Override
   public String toString() {
     return "MultivariatePolynomial{" +
         "terms=" + terms +
         '}';
   }
-}
\ No newline at end of file
+
+  /**
+   * Представление хранилища членов в виде Map.
+   */
+  private final class TermsView extends AbstractMap<Monomial, BigInteger> {
+
+    @Override
+    public BigInteger get(Object key) {
+      return key instanceof Monomial m && PackedTermMap.fits(m)
+          ? packed.get(PackedTermMap.pack(m))
+          : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return get(key) != null;
+    }
+
+    @Override
+    public BigInteger put(Monomial key, BigInteger value) {
+      return packed.put(PackedTermMap.pack(key), value);
+    }
+
+    @Override
+    public BigInteger remove(Object key) {
+      return key instanceof Monomial m && PackedTermMap.fits(m)
+          ? packed.remove(PackedTermMap.pack(m))
+          : null;
+    }
+
+    @Override
+    public int size() {
+      return packed.size();
+    }
+
+    @Override
+    public void clear() {
+      packed.clear();
+    }
+
+    @Override
+    public Set<Entry<Monomial, BigInteger>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Entry<Monomial, BigInteger>> iterator() {
+          return new Iterator<>() {
+            private int slot = advance(0);
+
+            private int advance(int from) {
+              while (from < packed.capacity() && packed.valueAt(from) == null) {
+                from++;
+              }
+              return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+              return slot < packed.capacity();
+            }
+
+            @Override
+            public Entry<Monomial, BigInteger> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+
+              Entry<Monomial, BigInteger> entry = new SimpleImmutableEntry<>(
+                  PackedTermMap.unpack(packed.keyAt(slot)),
+                  packed.valueAt(slot)
+              );
+              slot = advance(slot + 1);
+              return entry;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return packed.size();
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,311 @@
+package ru.mai.factorization.polynomial;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import ru.mai.factorization.monomial.Monomial;
+
+/**
+ * Хранилище коэффициентов полинома с ключами-мономами, упакованными в одно число long.
+ *
+ * <p>Степени (x, y, z) занимают по 21 биту, поэтому произведение мономов - это сумма ключей,
+ * пока степени не превышают {@link #MAX_EXPONENT}. Таблица использует открытую адресацию с
+ * линейным пробированием, что избавляет от объектов Monomial и узлов HashMap на каждый член.
+ */
+public class PackedTermMap {
+
+  private static final int BITS = 21;
+  private static final long FIELD_MASK = (1L << BITS) - 1;
+  private static final int MIN_CAPACITY = 8;
+
+  public static final int MAX_EXPONENT = (int) FIELD_MASK;
+
+  private long[] keys;
+  private BigInteger[] values;
+  private int size;
+  private int mask;
+
+  /**
+   * Конструктор пустой таблицы.
+   */
+  public PackedTermMap() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * Конструктор пустой таблицы, рассчитанной на заданное число членов.
+   *
+   * @param expectedSize ожидаемое число членов
+   */
+  public PackedTermMap(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * Конструктор копирования.
+   *
+   * @param other исходная таблица
+   */
+  public PackedTermMap(PackedTermMap other) {
+    this.keys = other.keys.clone();
+    this.values = other.values.clone();
+    this.size = other.size;
+    this.mask = other.mask;
+  }
+
+  /**
+   * Упаковка монома в ключ.
+   *
+   * @param x степень при x
+   * @param y степень при y
+   * @param z степень при z
+   * @return ключ
+   */
+  public static long pack(int x, int y, int z) {
+    if (x < 0 || y < 0 || z < 0 || x > MAX_EXPONENT || y > MAX_EXPONENT || z > MAX_EXPONENT) {
+      throw new IllegalArgumentException(
+          "Степени монома должны лежать в диапазоне [0, " + MAX_EXPONENT + "].");
+    }
+
+    return ((long) x << (2 * BITS)) | ((long) y << BITS) | z;
+  }
+
+  public static long pack(Monomial m) {
+    return pack(m.x(), m.y(), m.z());
+  }
+
+  /**
+   * Проверка, что моном можно упаковать в ключ.
+   *
+   * @param m моном
+   * @return true, если все степени лежат в допустимом диапазоне
+   */
+  public static boolean fits(Monomial m) {
+    return m.x() >= 0 && m.y() >= 0 && m.z() >= 0
+        && m.x() <= MAX_EXPONENT && m.y() <= MAX_EXPONENT && m.z() <= MAX_EXPONENT;
+  }
+
+  public static int x(long key) {
+    return (int) (key >>> (2 * BITS));
+  }
+
+  public static int y(long key) {
+    return (int) ((key >>> BITS) & FIELD_MASK);
+  }
+
+  public static int z(long key) {
+    return (int) (key & FIELD_MASK);
+  }
+
+  public static Monomial unpack(long key) {
+    return new Monomial(x(key), y(key), z(key));
+  }
+
+  /**
+   * Получение коэффициента.
+   *
+   * @param key ключ монома
+   * @return коэффициент или null, если моном отсутствует
+   */
+  public BigInteger get(long key) {
+    for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return values[i];
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Запись коэффициента.
+   *
+   * @param key   ключ монома
+   * @param value коэффициент
+   * @return предыдущий коэффициент или null
+   */
+  public BigInteger put(long key, BigInteger value) {
+    int i = find(key);
+
+    if (values[i] != null) {
+      BigInteger previous = values[i];
+      values[i] = value;
+      return previous;
+    }
+
+    insert(i, key, value);
+    return null;
+  }
+
+  /**
+   * Прибавление к коэффициенту монома. Нулевые коэффициенты сохраняются.
+   *
+   * @param key   ключ монома
+   * @param coeff слагаемое
+   */
+  public void add(long key, BigInteger coeff) {
+    int i = find(key);
+
+    if (values[i] != null) {
+      values[i] = values[i].add(coeff);
+    } else {
+      insert(i, key, coeff);
+    }
+  }
+
+  /**
+   * Прибавление к коэффициенту монома с удалением монома, если коэффициент стал нулевым.
+   *
+   * @param key   ключ монома
+   * @param coeff слагаемое
+   */
+  public void addToCoeff(long key, BigInteger coeff) {
+    int i = find(key);
+
+    if (values[i] == null) {
+      if (coeff.signum() != 0) {
+        insert(i, key, coeff);
+      }
+      return;
+    }
+
+    values[i] = values[i].add(coeff);
+
+    if (values[i].signum() == 0) {
+      removeAt(i);
+    }
+  }
+
+  /**
+   * Удаление монома.
+   *
+   * @param key ключ монома
+   * @return удаленный коэффициент или null
+   */
+  public BigInteger remove(long key) {
+    int i = find(key);
+
+    if (values[i] == null) {
+      return null;
+    }
+
+    BigInteger previous = values[i];
+    removeAt(i);
+    return previous;
+  }
+
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Размер таблицы для обхода по ячейкам через {@link #keyAt} и {@link #valueAt}.
+   *
+   * @return число ячеек
+   */
+  public int capacity() {
+    return values.length;
+  }
+
+  public long keyAt(int slot) {
+    return keys[slot];
+  }
+
+  /**
+   * Коэффициент в ячейке таблицы.
+   *
+   * @param slot номер ячейки
+   * @return коэффициент или null для пустой ячейки
+   */
+  public BigInteger valueAt(int slot) {
+    return values[slot];
+  }
+
+  int slot(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  private int find(long key) {
+    int i = slot(key);
+
+    while (values[i] != null && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+
+    return i;
+  }
+
+  private void insert(int i, long key, BigInteger value) {
+    keys[i] = key;
+    values[i] = value;
+    size++;
+
+    if (3 * size >= 2 * values.length) {
+      rehash(values.length << 1);
+    }
+  }
+
+  /**
+   * Удаление со сдвигом следующих элементов цепочки, без "надгробий".
+   */
+  private void removeAt(int i) {
+    values[i] = null;
+    size--;
+
+    int j = i;
+
+    while (true) {
+      j = (j + 1) & mask;
+
+      if (values[j] == null) {
+        return;
+      }
+
+      int home = slot(keys[j]);
+      boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+
+      if (!stays) {
+        keys[i] = keys[j];
+        values[i] = values[j];
+        values[j] = null;
+        i = j;
+      }
+    }
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    BigInteger[] oldValues = values;
+
+    allocate(capacity);
+
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = find(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new BigInteger[capacity];
+    mask = capacity - 1;
+  }
+
+  private static int capacityFor(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+
+    while (capacity < 1 << 30 && 2 * capacity <= 3 * expectedSize) {
+      capacity <<= 1;
+    }
+
+    return capacity;
+  }
+}
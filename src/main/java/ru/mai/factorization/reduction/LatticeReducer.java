@@ -0,0 +1,30 @@
+package ru.mai.factorization.reduction;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * Интерфейс для редукции решетки.
+ */
+public interface LatticeReducer {
+
+  /**
+   * Редукция базиса решетки.
+   *
+   * @param lattice базис решетки, строки матрицы - векторы базиса
+   * @return редуцированный базис
+   * @throws IOException          исключение при работе с файлами
+   * @throws InterruptedException исключение при запуске процесса
+   */
+  BigInteger[][] reduce(BigInteger[][] lattice) throws IOException, InterruptedException;
+
+  /**
+   * Описание алгоритма редукции и его параметров. Разные алгоритмы дают разные редуцированные
+   * базисы одной решетки, поэтому описание входит в ключ контрольной точки.
+   *
+   * @return описание редукции
+   */
+  default String description() {
+    return getClass().getName();
+  }
+}
@@ -0,0 +1,19 @@
+package ru.mai.factorization.reduction;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Источник базиса решетки, записывающий строки в текстовом формате fplll по мере их построения.
+ */
+@FunctionalInterface
+public interface LatticeSource {
+
+  /**
+   * Запись базиса решетки.
+   *
+   * @param writer поток для записи
+   * @throws IOException исключение при записи
+   */
+  void writeTo(Writer writer) throws IOException;
+}
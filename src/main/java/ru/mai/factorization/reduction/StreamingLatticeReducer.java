@@ -0,0 +1,20 @@
+package ru.mai.factorization.reduction;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * Интерфейс для редукции решетки, базис которой передается потоком, без построения матрицы.
+ */
+public interface StreamingLatticeReducer extends LatticeReducer {
+
+  /**
+   * Редукция базиса решетки, записываемого источником.
+   *
+   * @param source источник базиса решетки
+   * @return редуцированный базис
+   * @throws IOException          исключение при обмене данными
+   * @throws InterruptedException исключение при запуске процесса
+   */
+  BigInteger[][] reduce(LatticeSource source) throws IOException, InterruptedException;
+}
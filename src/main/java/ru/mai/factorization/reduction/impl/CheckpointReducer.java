@@ -0,0 +1,151 @@
+package ru.mai.factorization.reduction.impl;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import ru.mai.factorization.reduction.LatticeReducer;
+import ru.mai.factorization.utils.MatrixFile;
+
+/**
+ * Редукция с сохранением результата в каталоге контрольных точек.
+ *
+ * <p>Ключ решетки - SHA-256 описания следующей редукции ({@link LatticeReducer#description()}) и
+ * двоичного представления решетки в формате {@link MatrixFile}, поэтому одинаковые решетки разных
+ * задач и запусков, редуцированные одним алгоритмом, получают один и тот же файл
+ * {@code <ключ>.reduced}. Если файл уже есть, редуцированный базис читается из него, иначе решетка
+ * редуцируется и базис записывается. На время редукции берется блокировка файла
+ * {@code <ключ>.lock}: вторая задача с той же решеткой, в этой же JVM или в другом процессе,
+ * дождется первой и прочитает ее результат. Ожидание прерывается вместе с потоком. Файл
+ * блокировки удаляется, пока блокировка еще взята, а нечитаемый или не совпадающий по размерам с
+ * решеткой файл базиса считается отсутствующим.
+ */
+public class CheckpointReducer implements LatticeReducer {
+
+  private static final Logger LOGGER = System.getLogger(CheckpointReducer.class.getName());
+
+  /**
+   * Блокировки ключей внутри JVM: блокировку файла один процесс может взять только один раз.
+   * Блокировка удаляется, когда ее не держит и не ждет ни одна задача, поэтому в карте остаются
+   * только ключи решеток, редуцируемых сейчас.
+   */
+  private static final ConcurrentMap<String, KeyLock> LOCKS = new ConcurrentHashMap<>();
+
+  private final LatticeReducer next;
+  private final Path directory;
+
+  /**
+   * Блокировка ключа и число задач, которые ее держат или ждут. Число меняется только внутри
+   * {@link ConcurrentMap#compute}, атомарно для ключа.
+   */
+  private static final class KeyLock {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private int users;
+  }
+
+  /**
+   * Конструктор.
+   *
+   * @param next      редукция, выполняемая при отсутствии контрольной точки
+   * @param directory каталог контрольных точек, создается при необходимости
+   * @throws IOException исключение при создании каталога
+   */
+  public CheckpointReducer(LatticeReducer next, Path directory) throws IOException {
+    this.next = next;
+    this.directory = Files.createDirectories(directory);
+  }
+
+  /**
+   * Редуцированный базис из контрольной точки или новая редукция с ее записью.
+   *
+   * @param lattice базис решетки
+   * @return редуцированный базис
+   * @throws IOException          исключение при работе с файлами или следующей редукции
+   * @throws InterruptedException исключение, если поток прерван в ожидании блокировки или при
+   *                              работе следующей редукции
+   */
+  @Override
+  public BigInteger[][] reduce(BigInteger[][] lattice) throws IOException, InterruptedException {
+    String key = MatrixFile.digest(next.description(), lattice);
+    Path reduced = directory.resolve(key + ".reduced");
+    KeyLock keyLock = LOCKS.compute(key, (k, current) -> {
+      KeyLock result = current == null ? new KeyLock() : current;
+      result.users++;
+      return result;
+    });
+
+    try {
+      keyLock.lock.lockInterruptibly();
+
+      Path lockFile = directory.resolve(key + ".lock");
+
+      // Блокировка файла снимается при закрытии канала. Задача, дождавшаяся блокировки уже
+      // удаленного файла, найдет записанный базис; иначе редукция только повторится.
+      try (FileChannel channel = FileChannel.open(lockFile,
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        channel.lock();
+
+        try {
+          BigInteger[][] basis = read(reduced, lattice, key);
+
+          if (basis != null) {
+            LOGGER.log(Level.INFO, "Редуцированный базис прочитан из контрольной точки {0}", key);
+            return basis;
+          }
+
+          basis = next.reduce(lattice);
+          MatrixFile.write(reduced, basis);
+          LOGGER.log(Level.INFO, "Редуцированный базис записан в контрольную точку {0}", key);
+
+          return basis;
+        } finally {
+          Files.deleteIfExists(lockFile);
+        }
+      } finally {
+        keyLock.lock.unlock();
+      }
+    } finally {
+      LOCKS.computeIfPresent(key, (k, current) -> --current.users == 0 ? null : current);
+    }
+  }
+
+  /**
+   * Базис из контрольной точки или null, если файла нет, он не читается или его размеры не
+   * совпадают с размерами решетки.
+   */
+  private static BigInteger[][] read(Path reduced, BigInteger[][] lattice, String key) {
+    if (!Files.exists(reduced)) {
+      return null;
+    }
+
+    try {
+      BigInteger[][] basis = MatrixFile.read(reduced);
+      int columns = lattice.length == 0 ? 0 : lattice[0].length;
+
+      if (basis.length == lattice.length
+          && (basis.length == 0 || basis[0].length == columns)) {
+        return basis;
+      }
+
+      LOGGER.log(Level.WARNING, "Размеры контрольной точки {0} не совпадают с решеткой, "
+          + "редукция заново", key);
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Контрольная точка " + key + " не читается, редукция заново", e);
+    }
+
+    return null;
+  }
+
+  @Override
+  public String description() {
+    return next.description();
+  }
+}
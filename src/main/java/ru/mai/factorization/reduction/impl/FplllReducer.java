@@ -0,0 +1,252 @@
+package ru.mai.factorization.reduction.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import ru.mai.factorization.reduction.LatticeSource;
+import ru.mai.factorization.reduction.StreamingLatticeReducer;
+import ru.mai.factorization.utils.ProcessOutput;
+import ru.mai.factorization.worker.ToolWorker;
+
+/**
+ * Редукция решетки внешней утилитой fplll.
+ *
+ * <p>Решетка передается fplll через stdin, результат читается из stdout, поэтому параллельные
+ * задачи не используют общих файлов. Базис можно передавать потоком, строка за строкой, не
+ * строя всю матрицу в памяти. С {@link ToolWorker} задача отправляется долгоживущему процессу,
+ * тоже потоком, и запуск утилиты не повторяется на каждую задачу.
+ */
+public class FplllReducer implements StreamingLatticeReducer {
+
+  /**
+   * Потоки записи во входной поток fplll. Запись в pipe блокируется, пока fplll не прочитает
+   * данные, поэтому общий ForkJoinPool для нее не подходит.
+   */
+  private static final ExecutorService WRITERS = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "fplll-input");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final ToolWorker worker;
+
+  /**
+   * Редукция отдельным процессом fplll на каждую задачу.
+   */
+  public FplllReducer() {
+    this(null);
+  }
+
+  /**
+   * Редукция долгоживущими процессами, например пулом со скриптом scripts/fplll_worker.py.
+   *
+   * @param worker процесс или пул процессов редукции, null - запуск fplll на каждую задачу
+   */
+  public FplllReducer(ToolWorker worker) {
+    this.worker = worker;
+  }
+
+  /**
+   * Редукция базиса решетки через fplll.
+   *
+   * @param lattice базис решетки
+   * @return редуцированный базис
+   * @throws IOException          исключение при обмене данными с fplll
+   * @throws InterruptedException исключение при работе с утилитой fplll
+   */
+  @Override
+  public BigInteger[][] reduce(BigInteger[][] lattice) throws IOException, InterruptedException {
+    String[] rows = formatRows(lattice);
+    return reduce(writer -> writeMatrixForFplll(rows, writer));
+  }
+
+  /**
+   * Описание редукции. Долгоживущий процесс выполняет ту же редукцию LLL, что и fplll -a lll.
+   *
+   * @return описание редукции
+   */
+  @Override
+  public String description() {
+    return "fplll -a lll";
+  }
+
+  /**
+   * Редукция базиса решетки через fplll, строки записываются во входной поток по мере построения.
+   *
+   * @param source источник базиса решетки
+   * @return редуцированный базис
+   * @throws IOException          исключение при обмене данными с fplll
+   * @throws InterruptedException исключение при работе с утилитой fplll
+   */
+  @Override
+  public BigInteger[][] reduce(LatticeSource source) throws IOException, InterruptedException {
+    if (worker != null) {
+      return parseFplllOutput(worker.call(source::writeTo));
+    }
+
+    ProcessBuilder pb = new ProcessBuilder("fplll", "-a", "lll");
+    pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+    Process process = pb.start();
+    CompletableFuture<Void> input = CompletableFuture.runAsync(
+        () -> writeSource(source, process.getOutputStream()), WRITERS);
+
+    List<String> output = ProcessOutput.await(process);
+    int exitCode = process.exitValue();
+
+    // Упавший fplll закрывает pipe, и запись тоже завершается ошибкой; причина - код завершения.
+    if (exitCode != 0) {
+      throw new RuntimeException("fplll завершился с ошибкой, код: " + exitCode);
+    }
+
+    try {
+      input.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException io) {
+        throw io.getCause();
+      }
+      throw e;
+    }
+
+    return parseFplllOutput(output);
+  }
+
+  /**
+   * Запись строки матрицы в формате fplll.
+   *
+   * @param writer поток для записи
+   * @param row    строка матрицы
+   * @param index  номер строки
+   * @param count  число строк матрицы
+   * @throws IOException исключение при записи
+   */
+  public static void writeRow(Writer writer, BigInteger[] row, int index, int count)
+      throws IOException {
+    writeRow(writer, formatRow(row), index, count);
+  }
+
+  /**
+   * Перевод строк матрицы в формат fplll, строки обрабатываются параллельно.
+   *
+   * @param matrix матрица
+   * @return строки вида [a b c]
+   */
+  static String[] formatRows(BigInteger[][] matrix) {
+    return IntStream.range(0, matrix.length)
+        .parallel()
+        .mapToObj(i -> formatRow(matrix[i]))
+        .toArray(String[]::new);
+  }
+
+  private static String formatRow(BigInteger[] row) {
+    StringBuilder sb = new StringBuilder("[");
+
+    for (int j = 0; j < row.length; j++) {
+      if (j > 0) {
+        sb.append(' ');
+      }
+      sb.append(row[j]);
+    }
+
+    return sb.append(']').toString();
+  }
+
+  /**
+   * Запись матрицы в формате fplll.
+   *
+   * @param rows   строки матрицы в формате fplll
+   * @param writer поток для записи
+   */
+  private static void writeMatrixForFplll(String[] rows, Writer writer) throws IOException {
+    for (int i = 0; i < rows.length; i++) {
+      writeRow(writer, rows[i], i, rows.length);
+    }
+  }
+
+  private static void writeRow(Writer writer, String row, int index, int count)
+      throws IOException {
+    if (index == 0) {
+      writer.write("[\n");
+    }
+
+    writer.write(row);
+    writer.write(index < count - 1 ? "\n" : "]\n");
+  }
+
+  /**
+   * Запись базиса во входной поток fplll.
+   *
+   * @param source источник базиса решетки
+   * @param stream входной поток процесса
+   */
+  private static void writeSource(LatticeSource source, OutputStream stream) {
+    try (Writer writer = new BufferedWriter(
+        new OutputStreamWriter(stream, StandardCharsets.US_ASCII))) {
+      source.writeTo(writer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Разбор вывода fplll, строки разбираются параллельно.
+   *
+   * @param lines строки вывода fplll
+   * @return редуцированный базис
+   */
+  static BigInteger[][] parseFplllOutput(List<String> lines) {
+    return lines.parallelStream()
+        .map(FplllReducer::parseRow)
+        .filter(Objects::nonNull)
+        .toArray(BigInteger[][]::new);
+  }
+
+  /**
+   * Разбор одной строки вывода fplll без регулярных выражений.
+   *
+   * @param line строка вида [a b c], возможно с дополнительными скобками
+   * @return вектор или null, если строка не содержит чисел
+   * @throws IllegalArgumentException если за минусом не следует число
+   */
+  private static BigInteger[] parseRow(String line) {
+    List<BigInteger> row = new ArrayList<>();
+    int length = line.length();
+    int i = 0;
+
+    while (i < length) {
+      char ch = line.charAt(i);
+
+      if (ch == '-' || Character.isDigit(ch)) {
+        int start = i++;
+
+        while (i < length && Character.isDigit(line.charAt(i))) {
+          i++;
+        }
+
+        if (i == start + 1 && ch == '-') {
+          throw new IllegalArgumentException(
+              "Неверная строка вывода fplll: минус без числа в позиции " + start + ": " + line);
+        }
+
+        row.add(new BigInteger(line.substring(start, i)));
+      } else {
+        i++;
+      }
+    }
+
+    return row.isEmpty() ? null : row.toArray(BigInteger[]::new);
+  }
+}
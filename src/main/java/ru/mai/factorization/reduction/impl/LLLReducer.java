@@ -0,0 +1,538 @@
+package ru.mai.factorization.reduction.impl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import ru.mai.factorization.reduction.LatticeReducer;
+
+/**
+ * Редукция решетки алгоритмом LLL внутри JVM.
+ *
+ * <p>Сначала выполняется редукция с ортогонализацией Грама-Шмидта в арифметике с плавающей точкой
+ * (в духе L²: точная матрица Грама, приближенные коэффициенты). Если точности не хватило,
+ * редукция продолжается точным целочисленным алгоритмом (Cohen, Algorithm 2.6.7) с того базиса,
+ * который уже был получен.
+ */
+public class LLLReducer implements LatticeReducer {
+
+  private static final DoubleExponent ETA = DoubleExponent.of(0.51);
+  private static final int MAX_SIZE_REDUCTION_ROUNDS = 64;
+
+  /**
+   * Размерность, начиная с которой пересчет векторов и матрицы Грама выполняется параллельно:
+   * для меньших решеток одна операция слишком коротка, чтобы окупить разбиение на задачи.
+   */
+  private static final int PARALLEL_DIMENSION = 64;
+
+  private final BigDecimal delta;
+  private final BigInteger deltaNumerator;
+  private final BigInteger deltaDenominator;
+  private final boolean parallel;
+
+  /**
+   * Конструктор с параметром delta = 0.99, как в fplll.
+   */
+  public LLLReducer() {
+    this(new BigDecimal("0.99"));
+  }
+
+  /**
+   * Конструктор.
+   *
+   * @param delta параметр условия Ловаса, 1/4 < delta < 1
+   */
+  public LLLReducer(BigDecimal delta) {
+    this(delta, true);
+  }
+
+  /**
+   * Конструктор, позволяющий запретить параллельный пересчет для сравнения с последовательным.
+   *
+   * @param delta    параметр условия Ловаса, 1/4 < delta < 1
+   * @param parallel разрешить параллельный пересчет для больших решеток
+   */
+  LLLReducer(BigDecimal delta, boolean parallel) {
+    if (delta.compareTo(new BigDecimal("0.25")) <= 0 || delta.compareTo(BigDecimal.ONE) >= 0) {
+      throw new IllegalArgumentException("Параметр delta должен лежать в интервале (1/4, 1).");
+    }
+
+    BigDecimal stripped = delta.stripTrailingZeros();
+    this.delta = delta;
+    this.deltaNumerator = stripped.unscaledValue();
+    this.deltaDenominator = BigInteger.TEN.pow(stripped.scale());
+    this.parallel = parallel;
+  }
+
+  /**
+   * Редукция базиса решетки.
+   *
+   * @param lattice базис решетки, строки матрицы - линейно независимые векторы
+   * @return LLL-редуцированный базис
+   * @throws InterruptedException исключение, если поток прерван во время редукции
+   */
+  @Override
+  public BigInteger[][] reduce(BigInteger[][] lattice) throws InterruptedException {
+    BigInteger[][] basis = new BigInteger[lattice.length][];
+
+    for (int i = 0; i < lattice.length; i++) {
+      basis[i] = lattice[i].clone();
+    }
+
+    if (basis.length > 1 && !reduceFloating(basis)) {
+      reduceExact(basis);
+    }
+
+    return basis;
+  }
+
+  @Override
+  public String description() {
+    return "LLL, delta = " + delta;
+  }
+
+  /**
+   * Редукция с приближенной ортогонализацией Грама-Шмидта.
+   *
+   * @param b базис, изменяется на месте
+   * @return true - базис редуцирован, false - не хватило точности
+   */
+  boolean reduceFloating(BigInteger[][] b) throws InterruptedException {
+    int n = b.length;
+    BigInteger[][] gram = new BigInteger[n][n];
+    int maxBits = 0;
+
+    range(n, n).forEach(i -> {
+      for (int j = 0; j <= i; j++) {
+        gram[i][j] = dot(b[i], b[j]);
+        gram[j][i] = gram[i][j];
+      }
+    });
+
+    for (int i = 0; i < n; i++) {
+      maxBits = Math.max(maxBits, gram[i][i].bitLength());
+    }
+
+    DoubleExponent[][] r = new DoubleExponent[n][n];
+    DoubleExponent[][] mu = new DoubleExponent[n][n];
+    DoubleExponent deltaValue = DoubleExponent.of(delta.doubleValue());
+    r[0][0] = DoubleExponent.of(gram[0][0]);
+
+    long iterations = 0;
+    long limit = 100L * n * n * (maxBits + n);
+    int k = 1;
+
+    while (k < n) {
+      checkInterrupted();
+
+      if (++iterations > limit || !sizeReduce(b, gram, r, mu, k)) {
+        return false;
+      }
+
+      DoubleExponent rkk = DoubleExponent.of(gram[k][k]);
+
+      for (int j = 0; j < k; j++) {
+        rkk = rkk.subtract(mu[k][j].multiply(r[k][j]));
+      }
+
+      DoubleExponent s = rkk.add(mu[k][k - 1].multiply(r[k][k - 1]));
+
+      if (deltaValue.multiply(r[k - 1][k - 1]).compareTo(s) > 0) {
+        swap(b, gram, k);
+        k = Math.max(k - 1, 1);
+
+        if (k == 1) {
+          r[0][0] = DoubleExponent.of(gram[0][0]);
+        }
+      } else {
+        if (rkk.signum() <= 0) {
+          return false;
+        }
+
+        r[k][k] = rkk;
+        k++;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Ленивое уменьшение длины k-го вектора относительно предыдущих.
+   *
+   * @return false, если процесс не сошелся за разумное число итераций
+   */
+  private boolean sizeReduce(
+      BigInteger[][] b,
+      BigInteger[][] gram,
+      DoubleExponent[][] r,
+      DoubleExponent[][] mu,
+      int k) {
+    for (int round = 0; round < MAX_SIZE_REDUCTION_ROUNDS; round++) {
+      boolean reduced = true;
+
+      for (int j = 0; j < k; j++) {
+        DoubleExponent rkj = DoubleExponent.of(gram[k][j]);
+
+        for (int i = 0; i < j; i++) {
+          rkj = rkj.subtract(mu[j][i].multiply(r[k][i]));
+        }
+
+        r[k][j] = rkj;
+        mu[k][j] = rkj.divide(r[j][j]);
+
+        if (mu[k][j].abs().compareTo(ETA) > 0) {
+          reduced = false;
+        }
+      }
+
+      if (reduced) {
+        return true;
+      }
+
+      // Коэффициенты x_j зависят только от приближенных mu, поэтому сначала находятся все x_j,
+      // а затем b_k = b_k - sum x_j * b_j вычисляется одним проходом.
+      BigInteger[] x = new BigInteger[k];
+
+      for (int j = k - 1; j >= 0; j--) {
+        x[j] = mu[k][j].round();
+
+        if (x[j].signum() == 0) {
+          continue;
+        }
+
+        DoubleExponent xd = DoubleExponent.of(x[j]);
+
+        for (int i = 0; i < j; i++) {
+          mu[k][i] = mu[k][i].subtract(xd.multiply(mu[j][i]));
+        }
+      }
+
+      subtractCombination(b, gram, k, x);
+    }
+
+    return false;
+  }
+
+  /**
+   * b_k = b_k - sum x_j * b_j с пересчетом матрицы Грама. Столбцы вектора и строки матрицы Грама
+   * пересчитываются независимо, поэтому для больших решеток - параллельно.
+   */
+  private void subtractCombination(
+      BigInteger[][] b,
+      BigInteger[][] gram,
+      int k,
+      BigInteger[] x) {
+    int[] js = IntStream.range(0, x.length).filter(j -> x[j].signum() != 0).toArray();
+
+    if (js.length == 0) {
+      return;
+    }
+
+    int n = b.length;
+
+    range(b[k].length, n).forEach(c -> {
+      BigInteger value = b[k][c];
+
+      for (int j : js) {
+        if (b[j][c].signum() != 0) {
+          value = value.subtract(x[j].multiply(b[j][c]));
+        }
+      }
+
+      b[k][c] = value;
+    });
+
+    BigInteger[] before = IntStream.of(js).mapToObj(j -> gram[k][j]).toArray(BigInteger[]::new);
+
+    range(n, n).filter(i -> i != k).forEach(i -> {
+      BigInteger value = gram[k][i];
+
+      for (int j : js) {
+        value = value.subtract(x[j].multiply(gram[j][i]));
+      }
+
+      gram[k][i] = value;
+      gram[i][k] = value;
+    });
+
+    // |b_k'|^2 = <b_k', b_k> - sum x_j <b_k', b_j>
+    //          = <b_k, b_k> - sum x_j (<b_k, b_j> + <b_k', b_j>)
+    BigInteger norm = gram[k][k];
+
+    for (int s = 0; s < js.length; s++) {
+      norm = norm.subtract(x[js[s]].multiply(before[s].add(gram[k][js[s]])));
+    }
+
+    gram[k][k] = norm;
+  }
+
+  /**
+   * Диапазон индексов, параллельный для решеток размерности от {@link #PARALLEL_DIMENSION}, если
+   * параллельный пересчет разрешен и общему пулу доступно больше одного потока.
+   */
+  private IntStream range(int size, int dimension) {
+    IntStream range = IntStream.range(0, size);
+
+    return parallel && dimension >= PARALLEL_DIMENSION
+        && ForkJoinPool.getCommonPoolParallelism() > 1
+        ? range.parallel()
+        : range;
+  }
+
+  /**
+   * Перестановка векторов b_{k-1} и b_k вместе со строками и столбцами матрицы Грама.
+   */
+  private static void swap(BigInteger[][] b, BigInteger[][] gram, int k) {
+    BigInteger[] row = b[k];
+    b[k] = b[k - 1];
+    b[k - 1] = row;
+
+    BigInteger[] gramRow = gram[k];
+    gram[k] = gram[k - 1];
+    gram[k - 1] = gramRow;
+
+    for (BigInteger[] line : gram) {
+      BigInteger tmp = line[k];
+      line[k] = line[k - 1];
+      line[k - 1] = tmp;
+    }
+  }
+
+  /**
+   * Точный целочисленный LLL (Cohen, Algorithm 2.6.7).
+   *
+   * @param b базис, изменяется на месте
+   */
+  void reduceExact(BigInteger[][] b) throws InterruptedException {
+    int n = b.length;
+    BigInteger[] d = new BigInteger[n + 1];
+    BigInteger[][] lambda = new BigInteger[n + 1][n + 1];
+
+    d[0] = BigInteger.ONE;
+    d[1] = dot(b[0], b[0]);
+
+    int k = 2;
+    int kmax = 1;
+
+    while (k <= n) {
+      checkInterrupted();
+
+      if (k > kmax) {
+        kmax = k;
+
+        for (int j = 1; j <= k; j++) {
+          BigInteger u = dot(b[k - 1], b[j - 1]);
+
+          for (int i = 1; i < j; i++) {
+            u = d[i].multiply(u)
+                .subtract(lambda[k][i].multiply(lambda[j][i]))
+                .divide(d[i - 1]);
+          }
+
+          if (j < k) {
+            lambda[k][j] = u;
+          } else if (u.signum() == 0) {
+            throw new IllegalArgumentException("Векторы базиса решетки линейно зависимы.");
+          } else {
+            d[k] = u;
+          }
+        }
+      }
+
+      reduceExactPair(b, d, lambda, k, k - 1);
+
+      BigInteger left = deltaDenominator.multiply(d[k]).multiply(d[k - 2]);
+      BigInteger right = deltaNumerator.multiply(d[k - 1].pow(2))
+          .subtract(deltaDenominator.multiply(lambda[k][k - 1].pow(2)));
+
+      if (left.compareTo(right) < 0) {
+        swapExact(b, d, lambda, k, kmax);
+        k = Math.max(2, k - 1);
+      } else {
+        for (int l = k - 2; l >= 1; l--) {
+          reduceExactPair(b, d, lambda, k, l);
+        }
+        k++;
+      }
+    }
+  }
+
+  /**
+   * Проверка прерывания потока, чтобы отмененная задача не продолжала редукцию.
+   *
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  private static void checkInterrupted() throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException("Редукция решетки прервана");
+    }
+  }
+
+  private static void reduceExactPair(
+      BigInteger[][] b,
+      BigInteger[] d,
+      BigInteger[][] lambda,
+      int k,
+      int l) {
+    if (lambda[k][l].abs().shiftLeft(1).compareTo(d[l]) <= 0) {
+      return;
+    }
+
+    BigInteger q = floorDiv(lambda[k][l].shiftLeft(1).add(d[l]), d[l].shiftLeft(1));
+
+    for (int c = 0; c < b[k - 1].length; c++) {
+      if (b[l - 1][c].signum() != 0) {
+        b[k - 1][c] = b[k - 1][c].subtract(q.multiply(b[l - 1][c]));
+      }
+    }
+
+    lambda[k][l] = lambda[k][l].subtract(q.multiply(d[l]));
+
+    for (int i = 1; i < l; i++) {
+      lambda[k][i] = lambda[k][i].subtract(q.multiply(lambda[l][i]));
+    }
+  }
+
+  private static void swapExact(
+      BigInteger[][] b,
+      BigInteger[] d,
+      BigInteger[][] lambda,
+      int k,
+      int kmax) {
+    BigInteger[] row = b[k - 1];
+    b[k - 1] = b[k - 2];
+    b[k - 2] = row;
+
+    for (int j = 1; j <= k - 2; j++) {
+      BigInteger tmp = lambda[k][j];
+      lambda[k][j] = lambda[k - 1][j];
+      lambda[k - 1][j] = tmp;
+    }
+
+    BigInteger lam = lambda[k][k - 1];
+    BigInteger B = d[k - 2].multiply(d[k]).add(lam.pow(2)).divide(d[k - 1]);
+
+    for (int i = k + 1; i <= kmax; i++) {
+      BigInteger t = lambda[i][k];
+      lambda[i][k] = d[k].multiply(lambda[i][k - 1]).subtract(lam.multiply(t)).divide(d[k - 1]);
+      lambda[i][k - 1] = B.multiply(t).add(lam.multiply(lambda[i][k])).divide(d[k]);
+    }
+
+    d[k - 1] = B;
+  }
+
+  private static BigInteger floorDiv(BigInteger a, BigInteger b) {
+    BigInteger[] qr = a.divideAndRemainder(b);
+    return qr[1].signum() < 0 ? qr[0].subtract(BigInteger.ONE) : qr[0];
+  }
+
+  private static BigInteger dot(BigInteger[] a, BigInteger[] b) {
+    BigInteger result = BigInteger.ZERO;
+
+    for (int i = 0; i < a.length; i++) {
+      if (a[i].signum() != 0 && b[i].signum() != 0) {
+        result = result.add(a[i].multiply(b[i]));
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Число с плавающей точкой вида mantissa * 2^exponent с мантиссой double и неограниченным
+   * порядком, как dpe в fplll. Элементы решетки не помещаются в диапазон double, а точности
+   * мантиссы достаточно для приближенной ортогонализации.
+   */
+  private static final class DoubleExponent {
+
+    private static final DoubleExponent ZERO = new DoubleExponent(0.0, 0);
+
+    private final double mantissa;
+    private final long exponent;
+
+    private DoubleExponent(double mantissa, long exponent) {
+      this.mantissa = mantissa;
+      this.exponent = exponent;
+    }
+
+    private static DoubleExponent normalized(double mantissa, long exponent) {
+      if (mantissa == 0.0) {
+        return ZERO;
+      }
+
+      int shift = Math.getExponent(mantissa) + 1;
+      return new DoubleExponent(Math.scalb(mantissa, -shift), exponent + shift);
+    }
+
+    static DoubleExponent of(double value) {
+      return normalized(value, 0);
+    }
+
+    static DoubleExponent of(BigInteger value) {
+      int shift = Math.max(0, value.bitLength() - 62);
+      return normalized((double) value.shiftRight(shift).longValue(), shift);
+    }
+
+    int signum() {
+      return (int) Math.signum(mantissa);
+    }
+
+    DoubleExponent abs() {
+      return mantissa < 0 ? new DoubleExponent(-mantissa, exponent) : this;
+    }
+
+    DoubleExponent multiply(DoubleExponent other) {
+      return normalized(mantissa * other.mantissa, exponent + other.exponent);
+    }
+
+    DoubleExponent divide(DoubleExponent other) {
+      return normalized(mantissa / other.mantissa, exponent - other.exponent);
+    }
+
+    DoubleExponent add(DoubleExponent other) {
+      if (other.mantissa == 0.0) {
+        return this;
+      }
+
+      if (mantissa == 0.0) {
+        return other;
+      }
+
+      long diff = exponent - other.exponent;
+
+      if (diff > 64) {
+        return this;
+      }
+
+      if (diff < -64) {
+        return other;
+      }
+
+      return diff >= 0
+          ? normalized(mantissa + Math.scalb(other.mantissa, (int) -diff), exponent)
+          : normalized(Math.scalb(mantissa, (int) diff) + other.mantissa, other.exponent);
+    }
+
+    DoubleExponent subtract(DoubleExponent other) {
+      return add(new DoubleExponent(-other.mantissa, other.exponent));
+    }
+
+    int compareTo(DoubleExponent other) {
+      return subtract(other).signum();
+    }
+
+    /**
+     * Округление до ближайшего целого.
+     *
+     * @return целое число
+     */
+    BigInteger round() {
+      if (exponent <= 53) {
+        return BigInteger.valueOf((long) Math.rint(Math.scalb(mantissa, (int) exponent)));
+      }
+
+      return BigInteger.valueOf((long) Math.scalb(mantissa, 53)).shiftLeft((int) (exponent - 53));
+    }
+  }
+}
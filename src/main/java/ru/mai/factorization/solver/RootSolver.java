@@ -0,0 +1,49 @@
+package ru.mai.factorization.solver;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+
+/**
+ * Интерфейс для поиска корня y = p + q по редуцированным полиномам.
+ */
+public interface RootSolver {
+
+  /**
+   * Поиск общего корня y полиномов G(x,y,z) с учетом замены z = xy^r.
+   *
+   * @param polys полиномы после редукции, упорядоченные по возрастанию нормы
+   * @param r     параметр замены z = xy^r
+   * @return значение y или null, если корень не найден
+   * @throws IOException          исключение при работе с файлами
+   * @throws InterruptedException исключение при запуске процесса
+   */
+  BigInteger solve(List<MultivariatePolynomial> polys, int r)
+      throws IOException, InterruptedException;
+
+  /**
+   * Поиск корня y = p + q для модуля N. По умолчанию N не используется.
+   *
+   * @param polys полиномы после редукции, упорядоченные по возрастанию нормы
+   * @param r     параметр замены z = xy^r
+   * @param N     модуль RSA
+   * @return значение y или null, если корень не найден
+   * @throws IOException          исключение при работе с файлами
+   * @throws InterruptedException исключение при запуске процесса
+   */
+  default BigInteger solve(List<MultivariatePolynomial> polys, int r, BigInteger N)
+      throws IOException, InterruptedException {
+    return solve(polys, r);
+  }
+
+  /**
+   * Сколько самых коротких полиномов использует поиск. Столько векторов передается поиску, даже
+   * если условию Хоугрейва-Грэма удовлетворяет меньше.
+   *
+   * @return число полиномов
+   */
+  default int vectorsNeeded() {
+    return 3;
+  }
+}
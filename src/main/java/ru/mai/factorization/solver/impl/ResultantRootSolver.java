@@ -0,0 +1,396 @@
+package ru.mai.factorization.solver.impl;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import ru.mai.factorization.monomial.Monomial;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+import ru.mai.factorization.solver.RootSolver;
+import ru.mai.factorization.utils.Polynomial;
+
+/**
+ * Поиск корня y = p + q внутри JVM.
+ *
+ * <p>После замены z = xy^r полиномы становятся полиномами от x и y. Переменная x исключается
+ * результантом (определитель матрицы Сильвестра над Z[y], алгоритм Барейса), целые корни
+ * полученного полинома от y ищутся подъемом Гензеля корней по модулю малого простого числа.
+ * Найденный y принимается, только если при нем у выбранных полиномов есть общий целый корень x.
+ */
+public class ResultantRootSolver implements RootSolver {
+
+  private static final int PRIMES_TO_TRY = 20;
+  private static final int MAX_MULTIPLICITY = 4;
+  private static final BigInteger FIRST_PRIME = BigInteger.valueOf(1000);
+
+  private final int candidates;
+
+  /**
+   * Конструктор, использующий три самых коротких полинома, как идеал (f1, f2, f3) в Sage.
+   */
+  public ResultantRootSolver() {
+    this(3);
+  }
+
+  /**
+   * Конструктор.
+   *
+   * @param candidates количество самых коротких полиномов, участвующих в поиске
+   */
+  public ResultantRootSolver(int candidates) {
+    if (candidates < 2) {
+      throw new IllegalArgumentException("Для исключения переменной нужно хотя бы два полинома.");
+    }
+
+    this.candidates = candidates;
+  }
+
+  /**
+   * Поиск общего корня y полиномов.
+   *
+   * @param polys полиномы после редукции, упорядоченные по возрастанию нормы
+   * @param r     параметр замены z = xy^r
+   * @return значение y или null, если корень не найден
+   * @throws InterruptedException исключение, если поток прерван во время поиска
+   */
+  @Override
+  public BigInteger solve(List<MultivariatePolynomial> polys, int r) throws InterruptedException {
+    List<BigInteger[][]> bivariate = polys.stream()
+        .limit(candidates)
+        .map(poly -> toBivariate(poly, r))
+        .filter(poly -> poly.length > 0)
+        .toList();
+
+    for (int i = 0; i < bivariate.size(); i++) {
+      for (int j = i + 1; j < bivariate.size(); j++) {
+        if (Thread.interrupted()) {
+          throw new InterruptedException("Поиск корня прерван");
+        }
+
+        BigInteger[] resultant = resultant(bivariate.get(i), bivariate.get(j));
+
+        if (Polynomial.isZero(resultant)) {
+          continue;
+        }
+
+        for (BigInteger y : integerRoots(resultant)) {
+          if (y.signum() > 0 && hasCommonRoot(bivariate, y)) {
+            return y;
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Перевод полинома от (x,y,z) в полином от x с коэффициентами из Z[y] после замены z = xy^r.
+   *
+   * @param poly полином
+   * @param r    параметр замены
+   * @return коэффициенты при степенях x от старшей к младшей, каждый - полином от y; для нулевого
+   *     полинома - пустой массив
+   */
+  static BigInteger[][] toBivariate(MultivariatePolynomial poly, int r) {
+    int maxX = -1;
+    int maxY = 0;
+
+    for (var entry : poly.getTerms().entrySet()) {
+      if (entry.getValue().signum() != 0) {
+        Monomial m = entry.getKey();
+        maxX = Math.max(maxX, m.x() + m.z());
+        maxY = Math.max(maxY, m.y() + r * m.z());
+      }
+    }
+
+    BigInteger[][] result = new BigInteger[maxX + 1][maxY + 1];
+
+    for (BigInteger[] row : result) {
+      Arrays.fill(row, BigInteger.ZERO);
+    }
+
+    for (var entry : poly.getTerms().entrySet()) {
+      Monomial m = entry.getKey();
+      int xDegree = m.x() + m.z();
+      int yDegree = m.y() + r * m.z();
+      result[maxX - xDegree][maxY - yDegree] =
+          result[maxX - xDegree][maxY - yDegree].add(entry.getValue());
+    }
+
+    for (int i = 0; i < result.length; i++) {
+      result[i] = Polynomial.trim(result[i]);
+    }
+
+    int start = 0;
+
+    while (start < result.length && Polynomial.isZero(result[start])) {
+      start++;
+    }
+
+    return Arrays.copyOfRange(result, start, result.length);
+  }
+
+  /**
+   * Результант полиномов по переменной x.
+   *
+   * @param f первый полином от x над Z[y]
+   * @param g второй полином от x над Z[y]
+   * @return результант - полином от y
+   */
+  static BigInteger[] resultant(BigInteger[][] f, BigInteger[][] g) {
+    int a = f.length - 1;
+    int b = g.length - 1;
+
+    if (a == 0) {
+      return f[0];
+    }
+
+    if (b == 0) {
+      return g[0];
+    }
+
+    int size = a + b;
+    BigInteger[] zero = new BigInteger[]{BigInteger.ZERO};
+    BigInteger[][][] sylvester = new BigInteger[size][size][];
+
+    for (BigInteger[][] row : sylvester) {
+      Arrays.fill(row, zero);
+    }
+
+    for (int i = 0; i < b; i++) {
+      System.arraycopy(f, 0, sylvester[i], i, a + 1);
+    }
+
+    for (int i = 0; i < a; i++) {
+      System.arraycopy(g, 0, sylvester[b + i], i, b + 1);
+    }
+
+    return determinant(sylvester);
+  }
+
+  /**
+   * Определитель матрицы над Z[y] алгоритмом Барейса без дробей.
+   *
+   * @param matrix матрица, изменяется на месте
+   * @return определитель
+   */
+  private static BigInteger[] determinant(BigInteger[][][] matrix) {
+    int n = matrix.length;
+    boolean negate = false;
+    BigInteger[] previous = new BigInteger[]{BigInteger.ONE};
+
+    for (int k = 0; k < n - 1; k++) {
+      if (Polynomial.isZero(matrix[k][k])) {
+        int pivot = k + 1;
+
+        while (pivot < n && Polynomial.isZero(matrix[pivot][k])) {
+          pivot++;
+        }
+
+        if (pivot == n) {
+          return new BigInteger[]{BigInteger.ZERO};
+        }
+
+        BigInteger[][] row = matrix[k];
+        matrix[k] = matrix[pivot];
+        matrix[pivot] = row;
+        negate = !negate;
+      }
+
+      for (int i = k + 1; i < n; i++) {
+        for (int j = k + 1; j < n; j++) {
+          BigInteger[] numerator = Polynomial.subtract(
+              Polynomial.multiply(matrix[k][k], matrix[i][j]),
+              Polynomial.multiply(matrix[i][k], matrix[k][j])
+          );
+          matrix[i][j] = Polynomial.divideExact(numerator, previous);
+        }
+      }
+
+      previous = matrix[k][k];
+    }
+
+    BigInteger[] det = Polynomial.trim(matrix[n - 1][n - 1]);
+    return negate ? Polynomial.multiply(BigInteger.ONE.negate(), det) : det;
+  }
+
+  @Override
+  public int vectorsNeeded() {
+    return candidates;
+  }
+
+  /**
+   * Проверка найденного y: y положителен и при нем у полиномов есть общий целый корень x.
+   *
+   * @param polys полиномы от (x,y,z)
+   * @param r     параметр замены z = xy^r
+   * @param y     проверяемое значение
+   * @return true, если y - корень
+   */
+  static boolean isCommonRoot(List<MultivariatePolynomial> polys, int r, BigInteger y) {
+    if (y == null || y.signum() <= 0) {
+      return false;
+    }
+
+    List<BigInteger[][]> bivariate = polys.stream()
+        .map(poly -> toBivariate(poly, r))
+        .filter(poly -> poly.length > 0)
+        .toList();
+
+    return hasCommonRoot(bivariate, y);
+  }
+
+  /**
+   * Проверка, что при данном y у полиномов есть общий целый корень x.
+   */
+  private static boolean hasCommonRoot(List<BigInteger[][]> bivariate, BigInteger y) {
+    List<BigInteger[]> inX = new ArrayList<>();
+
+    for (BigInteger[][] poly : bivariate) {
+      BigInteger[] values = Arrays.stream(poly)
+          .map(coeff -> Polynomial.evaluate(coeff, y))
+          .toArray(BigInteger[]::new);
+
+      if (!Polynomial.isZero(values)) {
+        inX.add(Polynomial.trim(values));
+      }
+    }
+
+    if (inX.isEmpty()) {
+      return true;
+    }
+
+    for (BigInteger x : integerRoots(inX.get(0))) {
+      if (inX.stream().allMatch(poly -> Polynomial.evaluate(poly, x).signum() == 0)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Поиск всех целых корней полинома с целыми коэффициентами.
+   *
+   * @param poly ненулевой полином
+   * @return целые корни
+   */
+  static List<BigInteger> integerRoots(BigInteger[] poly) {
+    Set<BigInteger> roots = new LinkedHashSet<>();
+    BigInteger[] P = Polynomial.trim(poly);
+
+    while (P.length > 1 && P[P.length - 1].signum() == 0) {
+      P = Arrays.copyOf(P, P.length - 1);
+      roots.add(BigInteger.ZERO);
+    }
+
+    if (P.length <= 1) {
+      return new ArrayList<>(roots);
+    }
+
+    // Целый корень делит свободный член, поэтому достаточно поднять корень выше 2|a0|.
+    BigInteger bound = P[P.length - 1].abs().shiftLeft(1).add(BigInteger.ONE);
+    BigInteger[] current = P;
+
+    // Корень кратности k - простой корень (k-1)-й производной, поэтому проходы не прекращаются
+    // после первых найденных корней: кратные корни находятся только на следующих.
+    for (int pass = 0; pass < MAX_MULTIPLICITY && current.length > 1; pass++) {
+      for (BigInteger candidate : liftedRoots(current, bound)) {
+        if (Polynomial.evaluate(P, candidate).signum() == 0) {
+          roots.add(candidate);
+        }
+      }
+
+      current = Polynomial.derivative(current);
+    }
+
+    return new ArrayList<>(roots);
+  }
+
+  /**
+   * Подъем Гензеля простых корней полинома по модулю простого числа.
+   *
+   * @param P     полином
+   * @param bound модуль, до которого поднимаются корни
+   * @return кандидаты в целые корни
+   */
+  private static List<BigInteger> liftedRoots(BigInteger[] P, BigInteger bound) {
+    BigInteger[] derivative = Polynomial.derivative(P);
+    BigInteger prime = FIRST_PRIME;
+    List<BigInteger> best = null;
+    int bestMultiple = Integer.MAX_VALUE;
+    BigInteger bestPrime = null;
+
+    for (int attempt = 0; attempt < PRIMES_TO_TRY && bestMultiple > 0; attempt++) {
+      prime = prime.nextProbablePrime();
+
+      if (P[0].mod(prime).signum() == 0) {
+        continue;
+      }
+
+      int p = prime.intValueExact();
+      long[] reduced = reduce(P, prime);
+      long[] reducedDerivative = reduce(derivative, prime);
+      List<BigInteger> simple = new ArrayList<>();
+      int multiple = 0;
+
+      for (int a = 0; a < p; a++) {
+        if (evaluate(reduced, a, p) != 0) {
+          continue;
+        }
+
+        if (evaluate(reducedDerivative, a, p) == 0) {
+          multiple++;
+        } else {
+          simple.add(BigInteger.valueOf(a));
+        }
+      }
+
+      if (multiple < bestMultiple) {
+        best = simple;
+        bestMultiple = multiple;
+        bestPrime = prime;
+      }
+    }
+
+    List<BigInteger> candidates = new ArrayList<>();
+
+    if (best == null) {
+      return candidates;
+    }
+
+    for (BigInteger root : best) {
+      BigInteger modulus = bestPrime;
+      BigInteger lifted = root;
+
+      while (modulus.compareTo(bound) <= 0) {
+        modulus = modulus.multiply(modulus);
+        BigInteger inverse = Polynomial.evaluate(derivative, lifted, modulus).modInverse(modulus);
+        lifted = lifted.subtract(Polynomial.evaluate(P, lifted, modulus).multiply(inverse))
+            .mod(modulus);
+      }
+
+      candidates.add(
+          lifted.compareTo(modulus.shiftRight(1)) > 0 ? lifted.subtract(modulus) : lifted);
+    }
+
+    return candidates;
+  }
+
+  private static long[] reduce(BigInteger[] P, BigInteger prime) {
+    return Arrays.stream(P).mapToLong(coeff -> coeff.mod(prime).longValue()).toArray();
+  }
+
+  private static long evaluate(long[] P, long x, long p) {
+    long result = 0;
+
+    for (long coeff : P) {
+      result = (result * x + coeff) % p;
+    }
+
+    return result;
+  }
+}
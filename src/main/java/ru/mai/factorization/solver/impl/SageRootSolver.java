@@ -0,0 +1,201 @@
+package ru.mai.factorization.solver.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import ru.mai.factorization.monomial.Monomial;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+import ru.mai.factorization.solver.RootSolver;
+import ru.mai.factorization.utils.ProcessOutput;
+import ru.mai.factorization.utils.Workspace;
+import ru.mai.factorization.worker.ToolWorker;
+
+/**
+ * Поиск корня y = p + q через базис Грёбнера во внешней системе SageMath.
+ *
+ * <p>Скрипт для Sage создается в отдельном временном каталоге задачи, который удаляется после
+ * завершения Sage. С {@link ToolWorker} скрипт передается долгоживущему процессу Sage через pipe,
+ * без файлов и без повторной инициализации Sage.
+ */
+public class SageRootSolver implements RootSolver {
+
+  private final ToolWorker worker;
+
+  /**
+   * Поиск корня отдельным процессом Sage на каждую задачу.
+   */
+  public SageRootSolver() {
+    this(null);
+  }
+
+  /**
+   * Поиск корня долгоживущими процессами, например пулом со скриптом scripts/sage_worker.sage.
+   *
+   * @param worker процесс или пул процессов Sage, null - запуск Sage на каждую задачу
+   */
+  public SageRootSolver(ToolWorker worker) {
+    this.worker = worker;
+  }
+
+  /**
+   * Поиск корня через SageMath.
+   *
+   * @param polys полиномы после редукции, упорядоченные по возрастанию нормы
+   * @param r     параметр замены z = xy^r
+   * @return значение y
+   * @throws IOException          исключение при работе с файлами
+   * @throws InterruptedException исключение при работе с SageMath
+   */
+  @Override
+  public BigInteger solve(List<MultivariatePolynomial> polys, int r)
+      throws IOException, InterruptedException {
+    // В идеал входят только первые полиномы, и размасштабируются из ShortVectors только они.
+    polys = polys.subList(0, Math.min(vectorsNeeded(), polys.size()));
+
+    if (worker != null) {
+      StringWriter script = new StringWriter();
+
+      try (PrintWriter writer = new PrintWriter(script)) {
+        writeScript(polys, r, writer);
+      }
+
+      return extractResponse(worker.call(script.toString()).get(1));
+    }
+
+    try (Workspace workspace = new Workspace()) {
+      File sageScript = workspace.resolve("solve.sage").toFile();
+      exportPolynomialsToSage(polys, r, sageScript);
+
+      List<String> sageOutput = runSage(sageScript);
+
+      return extractResponse(sageOutput.get(1));
+    }
+  }
+
+  /**
+   * Экспортирование полиномов в файл sage для решения методом Гребнера.
+   *
+   * @param polys полиномы, упорядоченные по возрастанию нормы
+   * @param r     параметр замены z = xy^r
+   * @param file  файл для вывода
+   * @throws IOException исключение при работе с файлом
+   */
+  private static void exportPolynomialsToSage(List<MultivariatePolynomial> polys, int r, File file)
+      throws IOException {
+    try (PrintWriter writer = new PrintWriter(file)) {
+      writeScript(polys, r, writer);
+    }
+  }
+
+  /**
+   * Запись скрипта Sage с полиномами и вычислением базиса Грёбнера.
+   *
+   * @param polys  полиномы, упорядоченные по возрастанию нормы
+   * @param r      параметр замены z = xy^r
+   * @param writer поток для записи
+   */
+  private static void writeScript(List<MultivariatePolynomial> polys, int r, PrintWriter writer) {
+    writer.println("R.<x, y> = PolynomialRing(QQ, 2)");
+    writer.println();
+
+    for (int i = 0; i < polys.size(); i++) {
+      MultivariatePolynomial poly = polys.get(i);
+      StringBuilder sb = new StringBuilder("f" + (i + 1) + " = ");
+      List<String> terms = getTerms(poly, r);
+      sb.append(String.join(" + ", terms));
+      writer.println(sb);
+    }
+
+    writer.println();
+    writer.println("I = ideal(f1, f2, f3)");
+    writer.println("print('Groebner basis:')");
+    writer.println("print(I.groebner_basis())");
+  }
+
+  /**
+   * Запускает SageMath на скрипте (файле .sage) и возвращает строки вывода.
+   *
+   * @param sageFile файл скрипта Sage, который нужно запустить
+   * @return список строк, которые скрипт Sage напечатал в stdout
+   * @throws IOException          при ошибках ввода-вывода
+   * @throws InterruptedException при сбоях выполнения процесса
+   */
+  private static List<String> runSage(File sageFile) throws IOException, InterruptedException {
+    ProcessBuilder pb = new ProcessBuilder("sage", sageFile.getAbsolutePath());
+    pb.directory(sageFile.getParentFile());
+    pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+    Process process = pb.start();
+    List<String> outputLines = ProcessOutput.await(process);
+    int exitCode = process.exitValue();
+
+    if (exitCode != 0) {
+      throw new RuntimeException("Sage завершился с ошибкой, код: " + exitCode);
+    }
+
+    return outputLines;
+  }
+
+  /**
+   * Извлекает значение y из строки вида "[x - 123, y - 4567890]".
+   *
+   * @param input входная строка
+   * @return значение y как BigInteger
+   * @throws IllegalArgumentException если значение y не найдено
+   */
+  public static BigInteger extractResponse(String input) {
+    Pattern pattern = Pattern.compile("y\\s*-\\s*(-?\\d+)");
+    Matcher matcher = pattern.matcher(input);
+
+    if (matcher.find()) {
+      return new BigInteger(matcher.group(1));
+    }
+
+    throw new IllegalArgumentException("Не удалось найти значение y в строке: " + input);
+  }
+
+  /**
+   * Вывод полинома для файла sage.
+   *
+   * @param poly полином
+   * @return список мономов
+   */
+  private static List<String> getTerms(MultivariatePolynomial poly, int r) {
+    List<String> terms = new ArrayList<>();
+    String substitution = "(x*y^" + r + ")";
+
+    for (var entry : poly.terms.entrySet()) {
+      BigInteger coeff = entry.getValue();
+      Monomial m = entry.getKey();
+
+      if (coeff.equals(BigInteger.ZERO)) {
+        continue;
+      }
+
+      String term = coeff.toString();
+      if (m.x() > 0) {
+        term += "*x" + (m.x() > 1 ? "^" + m.x() : "");
+      }
+      if (m.y() > 0) {
+        term += "*y" + (m.y() > 1 ? "^" + m.y() : "");
+      }
+      if (m.z() > 0) {
+        term += "*" + substitution + (m.z() > 1 ? "^" + m.z() : "");
+      }
+
+      terms.add(term);
+    }
+
+    if (terms.isEmpty()) {
+      terms.add("0");
+    }
+
+    return terms;
+  }
+}
@@ -0,0 +1,219 @@
+package ru.mai.factorization.solver.impl;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import ru.mai.factorization.lattice.ShortVectors;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+import ru.mai.factorization.solver.RootSolver;
+
+/**
+ * Поиск корня по разным подмножествам коротких векторов.
+ *
+ * <p>Сначала корень ищется по самым коротким полиномам, как и без этого этапа. Если они корня не
+ * дали, остальные подмножества из нескольких самых коротких полиномов проверяются параллельно, в
+ * порядке возрастания нормы самого длинного полинома подмножества. Норма каждого полинома
+ * считается один раз, а для {@link ShortVectors} берется уже посчитанная при отборе. Ответ
+ * принимается только после проверки, что при найденном y у полиномов подмножества есть общий
+ * целый корень x и что y = p + q для делителей N, после чего остальные подмножества отменяются.
+ */
+public class SubsetRootSolver implements RootSolver {
+
+  private static final Logger LOGGER = System.getLogger(SubsetRootSolver.class.getName());
+
+  private final RootSolver solver;
+  private final int candidates;
+  private final int size;
+  private final int threads;
+
+  /**
+   * Конструктор.
+   *
+   * @param solver     поиск корня по одному подмножеству
+   * @param candidates число самых коротких полиномов, из которых составляются подмножества
+   * @param size       размер подмножества
+   * @param threads    число параллельно проверяемых подмножеств
+   */
+  public SubsetRootSolver(RootSolver solver, int candidates, int size, int threads) {
+    if (size < 2 || candidates < size) {
+      throw new IllegalArgumentException(
+          "Нужно хотя бы два полинома в подмножестве "
+              + "и не меньше полиномов, чем размер подмножества.");
+    }
+
+    if (threads < 1) {
+      throw new IllegalArgumentException("Число потоков должно быть положительным.");
+    }
+
+    this.solver = solver;
+    this.candidates = candidates;
+    this.size = size;
+    this.threads = threads;
+  }
+
+  @Override
+  public BigInteger solve(List<MultivariatePolynomial> polys, int r)
+      throws IOException, InterruptedException {
+    return solve(polys, r, null);
+  }
+
+  /**
+   * Поиск корня по подмножествам полиномов.
+   *
+   * @param polys полиномы после редукции, упорядоченные по возрастанию нормы
+   * @param r     параметр замены z = xy^r
+   * @param N     модуль RSA или null, если проверяется только общий корень
+   * @return проверенное значение y или null, если ни одно подмножество его не дало
+   * @throws IOException          исключение при работе с внешними утилитами
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  @Override
+  public BigInteger solve(List<MultivariatePolynomial> polys, int r, BigInteger N)
+      throws IOException, InterruptedException {
+    List<MultivariatePolynomial> shortest = polys.subList(0, Math.min(candidates, polys.size()));
+
+    if (shortest.size() < size) {
+      return attempt(shortest, r, N);
+    }
+
+    List<int[]> subsets = subsets(polys, shortest.size());
+    BigInteger y = attempt(pick(shortest, subsets.get(0)), r, N);
+
+    if (y != null || subsets.size() == 1) {
+      return y;
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, subsets.size() - 1));
+    ExecutorCompletionService<BigInteger> completion = new ExecutorCompletionService<>(pool);
+    List<Future<BigInteger>> futures = new ArrayList<>();
+
+    try {
+      for (int[] subset : subsets.subList(1, subsets.size())) {
+        futures.add(completion.submit(() -> attempt(pick(shortest, subset), r, N)));
+      }
+
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          BigInteger root = completion.take().get();
+
+          if (root != null) {
+            return root;
+          }
+        } catch (ExecutionException ex) {
+          LOGGER.log(Level.DEBUG, "Подмножество полиномов не дало корня", ex.getCause());
+        }
+      }
+
+      return null;
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+      pool.shutdownNow();
+    }
+  }
+
+  @Override
+  public int vectorsNeeded() {
+    return Math.max(candidates, solver.vectorsNeeded());
+  }
+
+  /**
+   * Подмножества номеров полиномов размера size в порядке возрастания нормы самого длинного
+   * полинома, затем суммы норм. Первое подмножество - самые короткие полиномы. Для
+   * {@link ShortVectors} берутся уже посчитанные нормы векторов, без построения полиномов.
+   */
+  private List<int[]> subsets(List<MultivariatePolynomial> polys, int count) {
+    BigInteger[] norms = IntStream.range(0, count)
+        .mapToObj(i -> polys instanceof ShortVectors vectors
+            ? vectors.normSquared(i)
+            : normSquared(polys.get(i)))
+        .toArray(BigInteger[]::new);
+    List<int[]> result = new ArrayList<>();
+    combine(count, new int[size], 0, 0, result);
+
+    result.sort(Comparator
+        .comparing((int[] subset) -> norms[subset[size - 1]])
+        .thenComparing(subset -> Arrays.stream(subset)
+            .mapToObj(i -> norms[i])
+            .reduce(BigInteger.ZERO, BigInteger::add)));
+
+    return result;
+  }
+
+  private static void combine(int n, int[] current, int depth, int from, List<int[]> result) {
+    if (depth == current.length) {
+      result.add(current.clone());
+      return;
+    }
+
+    for (int i = from; i <= n - (current.length - depth); i++) {
+      current[depth] = i;
+      combine(n, current, depth + 1, i + 1, result);
+    }
+  }
+
+  private BigInteger attempt(List<MultivariatePolynomial> subset, int r, BigInteger N)
+      throws IOException, InterruptedException {
+    BigInteger y;
+
+    try {
+      y = solver.solve(subset, r, N);
+    } catch (IllegalArgumentException ex) {
+      // Внешний решатель сообщает об отсутствии корня исключением.
+      return null;
+    }
+
+    if (!ResultantRootSolver.isCommonRoot(subset, r, y)) {
+      return null;
+    }
+
+    if (N != null && !splits(y, N)) {
+      LOGGER.log(Level.DEBUG, "Общий корень y = {0} не дает делителей N", y);
+      return null;
+    }
+
+    return y;
+  }
+
+  /**
+   * Проверка, что y = p + q для N = pq при p, q > 1: y^2 - 4N - полный квадрат (p - q)^2.
+   */
+  private static boolean splits(BigInteger y, BigInteger N) {
+    BigInteger discriminant = y.multiply(y).subtract(N.shiftLeft(2));
+
+    if (discriminant.signum() < 0) {
+      return false;
+    }
+
+    BigInteger difference = discriminant.sqrt();
+
+    return difference.multiply(difference).equals(discriminant)
+        && y.subtract(difference).compareTo(BigInteger.TWO) > 0;
+  }
+
+  private static List<MultivariatePolynomial> pick(
+      List<MultivariatePolynomial> polys,
+      int[] subset) {
+    return IntStream.of(subset).mapToObj(polys::get).toList();
+  }
+
+  private static BigInteger normSquared(MultivariatePolynomial poly) {
+    BigInteger normSquared = BigInteger.ZERO;
+
+    for (BigInteger coeff : poly.getTerms().values()) {
+      normSquared = normSquared.add(coeff.multiply(coeff));
+    }
+
+    return normSquared;
+  }
+}
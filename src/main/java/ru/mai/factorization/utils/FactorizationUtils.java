@@ -53,6 +53,21 @@ public class FactorizationUtils {
     ) < 0;
   }
 
+  /**
+   * Двоичный логарифм положительного целого числа в арифметике с плавающей точкой.
+   *
+   * @param number положительное число
+   * @return log2(number)
+   */
+  public static double log2(BigInteger number) {
+    if (number.signum() <= 0) {
+      throw new IllegalArgumentException("Логарифм определен только для положительных чисел.");
+    }
+
+    int shift = Math.max(0, number.bitLength() - 53);
+    return shift + Math.log(number.shiftRight(shift).doubleValue()) / Math.log(2);
+  }
+
   /**
    * Возведение числа в рациональную степень.
    *
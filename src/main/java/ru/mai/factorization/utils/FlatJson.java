@@ -0,0 +1,205 @@
+package ru.mai.factorization.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Разбор и запись плоских JSON-объектов вида {"ключ": значение, ...} для построчных файлов.
+ *
+ * <p>Значения - строки, числа, true/false или null; вложенные объекты и массивы не
+ * поддерживаются. При разборе все значения возвращаются строками, большие числа не теряют точность.
+ */
+public class FlatJson {
+
+  /**
+   * Разбор одного объекта.
+   *
+   * @param json строка с объектом
+   * @return поля объекта в порядке записи
+   */
+  public static Map<String, String> parse(String json) {
+    Map<String, String> result = new LinkedHashMap<>();
+    int[] pos = {skipSpaces(json, 0)};
+
+    expect(json, pos, '{');
+
+    if (peek(json, pos) == '}') {
+      pos[0]++;
+      return result;
+    }
+
+    while (true) {
+      String key = readString(json, pos);
+      expect(json, pos, ':');
+      result.put(key, readValue(json, pos));
+
+      char ch = peek(json, pos);
+      pos[0]++;
+
+      if (ch == '}') {
+        break;
+      }
+
+      if (ch != ',') {
+        throw new IllegalArgumentException("Ожидалась ',' или '}' в позиции " + (pos[0] - 1));
+      }
+    }
+
+    if (skipSpaces(json, pos[0]) != json.length()) {
+      throw new IllegalArgumentException("Лишние символы после объекта JSON.");
+    }
+
+    return result;
+  }
+
+  /**
+   * Запись объекта. Числа записываются без кавычек, остальные значения - строками.
+   *
+   * @param fields поля объекта
+   * @return строка с объектом
+   */
+  public static String write(Map<String, ?> fields) {
+    StringBuilder sb = new StringBuilder("{");
+
+    for (Map.Entry<String, ?> entry : fields.entrySet()) {
+      if (sb.length() > 1) {
+        sb.append(',');
+      }
+
+      appendString(sb, entry.getKey());
+      sb.append(':');
+
+      Object value = entry.getValue();
+
+      if (value == null) {
+        sb.append("null");
+      } else if (value instanceof Number || value instanceof Boolean) {
+        sb.append(value);
+      } else {
+        appendString(sb, value.toString());
+      }
+    }
+
+    return sb.append('}').toString();
+  }
+
+  private static String readValue(String json, int[] pos) {
+    char ch = peek(json, pos);
+
+    if (ch == '"') {
+      return readString(json, pos);
+    }
+
+    if (ch == '{' || ch == '[') {
+      throw new IllegalArgumentException(
+          "Вложенные объекты и массивы не поддерживаются, позиция " + pos[0]);
+    }
+
+    int start = pos[0];
+
+    while (pos[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(pos[0])) < 0) {
+      pos[0]++;
+    }
+
+    String literal = json.substring(start, pos[0]);
+
+    if (literal.isEmpty()) {
+      throw new IllegalArgumentException("Ожидалось значение в позиции " + start);
+    }
+
+    return "null".equals(literal) ? null : literal;
+  }
+
+  private static String readString(String json, int[] pos) {
+    expect(json, pos, '"');
+    StringBuilder sb = new StringBuilder();
+
+    while (pos[0] < json.length()) {
+      char ch = json.charAt(pos[0]++);
+
+      if (ch == '"') {
+        return sb.toString();
+      }
+
+      if (ch != '\\') {
+        sb.append(ch);
+        continue;
+      }
+
+      if (pos[0] >= json.length()) {
+        break;
+      }
+
+      char escaped = json.charAt(pos[0]++);
+
+      switch (escaped) {
+        case 'n' -> sb.append('\n');
+        case 't' -> sb.append('\t');
+        case 'r' -> sb.append('\r');
+        case 'b' -> sb.append('\b');
+        case 'f' -> sb.append('\f');
+        case 'u' -> {
+          if (pos[0] + 4 > json.length()) {
+            throw new IllegalArgumentException("Неполная escape-последовательность \\u.");
+          }
+          sb.append((char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16));
+          pos[0] += 4;
+        }
+        default -> sb.append(escaped);
+      }
+    }
+
+    throw new IllegalArgumentException("Незакрытая строка JSON.");
+  }
+
+  private static void appendString(StringBuilder sb, String value) {
+    sb.append('"');
+
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+
+      switch (ch) {
+        case '"' -> sb.append("\\\"");
+        case '\\' -> sb.append("\\\\");
+        case '\n' -> sb.append("\\n");
+        case '\r' -> sb.append("\\r");
+        case '\t' -> sb.append("\\t");
+        default -> {
+          if (ch < 0x20) {
+            sb.append(String.format("\\u%04x", (int) ch));
+          } else {
+            sb.append(ch);
+          }
+        }
+      }
+    }
+
+    sb.append('"');
+  }
+
+  private static void expect(String json, int[] pos, char expected) {
+    if (peek(json, pos) != expected) {
+      throw new IllegalArgumentException("Ожидался символ '" + expected + "' в позиции " + pos[0]);
+    }
+
+    pos[0]++;
+  }
+
+  private static char peek(String json, int[] pos) {
+    pos[0] = skipSpaces(json, pos[0]);
+
+    if (pos[0] >= json.length()) {
+      throw new IllegalArgumentException("Неожиданный конец JSON.");
+    }
+
+    return json.charAt(pos[0]);
+  }
+
+  private static int skipSpaces(String json, int pos) {
+    while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+      pos++;
+    }
+
+    return pos;
+  }
+}
@@ -0,0 +1,151 @@
+package ru.mai.factorization.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Двоичный формат целочисленной матрицы.
+ *
+ * <p>Заголовок - 8 байт RSAMAT01, число строк и число столбцов (int), затем записи по
+ * строкам: длина в байтах (int) и дополнительный код {@link BigInteger#toByteArray()}. Нулевая
+ * запись занимает 5 байт. Файл записывается во временный файл рядом и переименовывается, поэтому
+ * прерванная запись не оставляет неполного файла, а читается через отображение в память. Размеры
+ * из заголовка и длины записей при чтении сверяются с длиной файла.
+ */
+public class MatrixFile {
+
+  private static final byte[] MAGIC = {'R', 'S', 'A', 'M', 'A', 'T', '0', '1'};
+
+  private static final int MIN_ENTRY_BYTES = 5;
+
+  /**
+   * Запись матрицы в файл.
+   *
+   * @param path   путь к файлу
+   * @param matrix матрица
+   * @throws IOException исключение при записи
+   */
+  public static void write(Path path, BigInteger[][] matrix) throws IOException {
+    Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), ".matrix", ".tmp");
+
+    try {
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        write(out, matrix);
+      }
+
+      Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Чтение матрицы из файла через отображение в память.
+   *
+   * @param path путь к файлу
+   * @return матрица
+   * @throws IOException исключение при чтении или неверном формате файла
+   */
+  public static BigInteger[][] read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      byte[] magic = new byte[MAGIC.length];
+
+      try {
+        buffer.get(magic);
+
+        if (!MessageDigest.isEqual(magic, MAGIC)) {
+          throw new IOException("Файл " + path + " не является файлом матрицы");
+        }
+
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+
+        if (rows < 0 || columns < 0
+            || (long) rows * columns * MIN_ENTRY_BYTES > buffer.remaining()) {
+          throw new IOException("Размеры " + rows + "x" + columns + " в заголовке файла " + path
+              + " не соответствуют его длине");
+        }
+
+        BigInteger[][] matrix = new BigInteger[rows][columns];
+
+        for (BigInteger[] row : matrix) {
+          for (int j = 0; j < row.length; j++) {
+            int length = buffer.getInt();
+
+            if (length < 1 || length > buffer.remaining()) {
+              throw new IOException("Неверная длина записи " + length + " в файле " + path);
+            }
+
+            byte[] value = new byte[length];
+            buffer.get(value);
+            row[j] = new BigInteger(value);
+          }
+        }
+
+        if (buffer.hasRemaining()) {
+          throw new IOException("Лишние данные в конце файла " + path);
+        }
+
+        return matrix;
+      } catch (RuntimeException e) {
+        throw new IOException("Файл матрицы " + path + " поврежден", e);
+      }
+    }
+  }
+
+  /**
+   * SHA-256 контекста и двоичного представления матрицы.
+   *
+   * @param context строка, отличающая разные результаты для одной матрицы
+   * @param matrix  матрица
+   * @return хэш в шестнадцатеричном виде
+   */
+  public static String digest(String context, BigInteger[][] matrix) {
+    MessageDigest sha;
+
+    try {
+      sha = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+
+    try (DataOutputStream out = new DataOutputStream(
+        new DigestOutputStream(OutputStream.nullOutputStream(), sha))) {
+      out.writeUTF(context);
+      write(out, matrix);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    return HexFormat.of().formatHex(sha.digest());
+  }
+
+  private static void write(DataOutputStream out, BigInteger[][] matrix) throws IOException {
+    out.write(MAGIC);
+    out.writeInt(matrix.length);
+    out.writeInt(matrix.length == 0 ? 0 : matrix[0].length);
+
+    for (BigInteger[] row : matrix) {
+      for (BigInteger value : row) {
+        byte[] bytes = value.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    }
+  }
+}
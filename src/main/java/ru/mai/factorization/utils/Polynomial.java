@@ -1,7 +1,12 @@
 package ru.mai.factorization.utils;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import ru.mai.factorization.monomial.Monomial;
 import ru.mai.factorization.polynomial.MultivariatePolynomial;
 
@@ -10,28 +15,72 @@ import ru.mai.factorization.polynomial.MultivariatePolynomial;
  */
 public class Polynomial {
 
+  private static final int PHI_CACHE_SIZE = 64;
+
+  /**
+   * Кэш последовательностей phi(1, N), phi(2, N), ... для недавно использованных модулей N.
+   */
+  private static final Map<BigInteger, PhiSequence> PHI_CACHE = Collections.synchronizedMap(
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BigInteger, PhiSequence> eldest) {
+          return size() > PHI_CACHE_SIZE;
+        }
+      });
+
+  /**
+   * Вычисленные полиномы phi(1, N), ..., phi(k, N) и степень N^(k-1) для последнего из них.
+   */
+  private static final class PhiSequence {
+
+    private final List<BigInteger[]> polys = new ArrayList<>();
+    private BigInteger power;
+  }
+
   /**
    * Вычисление функции phi.
    *
+   * <p>Полиномы вычисляются итеративно по рекуррентной формуле
+   * phi(n) = y * phi(n-1) - N * phi(n-2) + N^(n-1) + 1 и кэшируются для модуля N вместе с
+   * последней степенью N, поэтому повторные вызовы с тем же N достраивают только недостающие
+   * степени.
+   *
    * @param n максимальная степень многочленов
    * @param N модуль RSA
    * @return полином-функция phi
    */
   public static BigInteger[] phi(int n, BigInteger N) {
-    if (n == 1) {
-      return new BigInteger[]{BigInteger.ONE};
+    if (n < 1) {
+      throw new IllegalArgumentException("Степень n должна быть положительной.");
     }
 
-    if (n == 2) {
-      return new BigInteger[]{BigInteger.ONE, N.add(BigInteger.ONE)};
-    }
+    PhiSequence sequence = PHI_CACHE.computeIfAbsent(N, key -> {
+      PhiSequence result = new PhiSequence();
+      result.polys.add(new BigInteger[]{BigInteger.ONE});
+      result.polys.add(new BigInteger[]{BigInteger.ONE, key.add(BigInteger.ONE)});
+      result.power = key;
+      return result;
+    });
 
-    BigInteger[] one = new BigInteger[]{BigInteger.ONE, BigInteger.ZERO};
-    BigInteger[] result = subtract(multiply(one, phi(n - 1, N)), multiply(N, phi(n - 2, N)));
+    synchronized (sequence) {
+      List<BigInteger[]> polys = sequence.polys;
+      BigInteger[] one = new BigInteger[]{BigInteger.ONE, BigInteger.ZERO};
 
-    result[result.length - 1] = result[result.length - 1].add(N.pow(n - 1).add(BigInteger.ONE));
+      while (polys.size() < n) {
+        int k = polys.size() + 1;
+        BigInteger[] result = subtract(
+            multiply(one, polys.get(k - 2)),
+            multiply(N, polys.get(k - 3))
+        );
 
-    return result;
+        sequence.power = sequence.power.multiply(N);
+        result[result.length - 1] = result[result.length - 1].add(
+            sequence.power.add(BigInteger.ONE));
+        polys.add(result);
+      }
+
+      return polys.get(n - 1).clone();
+    }
   }
 
   /**
@@ -94,50 +143,159 @@ public class Polynomial {
   }
 
   /**
-   * Построение функции F(x,y,z).
+   * Удаление нулевых старших коэффициентов. Нулевой полином представляется как {0}.
    *
-   * @param H функция H(y)
-   * @param c свободный член
-   * @return функция F(x,y,z)
+   * @param A полином
+   * @return полином без нулевых старших коэффициентов
    */
-  public static MultivariatePolynomial buildF(BigInteger[] H, BigInteger c) {
-    MultivariatePolynomial F = new MultivariatePolynomial();
+  public static BigInteger[] trim(BigInteger[] A) {
+    if (A.length == 0) {
+      return new BigInteger[]{BigInteger.ZERO};
+    }
 
-    F.addTerm(BigInteger.ONE, new Monomial(0, 0, 1));
+    int start = 0;
 
-    for (int i = 1; i < H.length; i++) {
-      F.addTerm(H[i], new Monomial(1, H.length - i - 1, 0));
+    while (start < A.length - 1 && A[start].signum() == 0) {
+      start++;
     }
 
-    F.addTerm(c, new Monomial(0, 0, 0));
+    return start == 0 ? A : Arrays.copyOfRange(A, start, A.length);
+  }
 
-    return F;
+  /**
+   * Проверка полинома на равенство нулю.
+   *
+   * @param A полином
+   * @return true, если все коэффициенты равны нулю
+   */
+  public static boolean isZero(BigInteger[] A) {
+    return Arrays.stream(A).allMatch(coeff -> coeff.signum() == 0);
+  }
+
+  /**
+   * Точное деление полиномов с целыми коэффициентами.
+   *
+   * @param A делимое
+   * @param B делитель
+   * @return частное
+   * @throws ArithmeticException если деление не выполняется нацело
+   */
+  public static BigInteger[] divideExact(BigInteger[] A, BigInteger[] B) {
+    BigInteger[] a = trim(A).clone();
+    BigInteger[] b = trim(B);
+
+    if (isZero(b)) {
+      throw new ArithmeticException("Деление на нулевой полином.");
+    }
+
+    if (isZero(a)) {
+      return new BigInteger[]{BigInteger.ZERO};
+    }
+
+    if (a.length < b.length) {
+      throw new ArithmeticException("Полином не делится нацело.");
+    }
+
+    BigInteger[] quotient = new BigInteger[a.length - b.length + 1];
+
+    for (int i = 0; i < quotient.length; i++) {
+      BigInteger[] qr = a[i].divideAndRemainder(b[0]);
+
+      if (qr[1].signum() != 0) {
+        throw new ArithmeticException("Полином не делится нацело.");
+      }
+
+      quotient[i] = qr[0];
+
+      if (qr[0].signum() != 0) {
+        for (int j = 0; j < b.length; j++) {
+          a[i + j] = a[i + j].subtract(qr[0].multiply(b[j]));
+        }
+      }
+    }
+
+    for (int i = quotient.length; i < a.length; i++) {
+      if (a[i].signum() != 0) {
+        throw new ArithmeticException("Полином не делится нацело.");
+      }
+    }
+
+    return quotient;
   }
 
   /**
-   * Замена z=xy^r
+   * Вычисление значения полинома по схеме Горнера.
    *
-   * @param poly полином, в котором необходимо произвести замену
-   * @param r параметр для замены
-   * @return результат замены
+   * @param A полином
+   * @param x точка
+   * @return значение полинома в точке
    */
-  public static MultivariatePolynomial reduceXYrToZ(MultivariatePolynomial poly, int r) {
-    MultivariatePolynomial result = new MultivariatePolynomial();
+  public static BigInteger evaluate(BigInteger[] A, BigInteger x) {
+    BigInteger result = BigInteger.ZERO;
 
-    for (var entry : poly.terms.entrySet()) {
-      Monomial m = entry.getKey();
-      BigInteger coeff = entry.getValue();
+    for (BigInteger coeff : A) {
+      result = result.multiply(x).add(coeff);
+    }
 
-      int q = Math.min(m.x(), m.y() / r);
+    return result;
+  }
 
-      int newX = m.x() - q;
-      int newY = m.y() - q * r;
-      int newZ = m.z() + q;
+  /**
+   * Вычисление значения полинома по модулю.
+   *
+   * @param A       полином
+   * @param x       точка
+   * @param modulus модуль
+   * @return значение полинома в точке по модулю
+   */
+  public static BigInteger evaluate(BigInteger[] A, BigInteger x, BigInteger modulus) {
+    BigInteger result = BigInteger.ZERO;
 
-      Monomial reduced = new Monomial(newX, newY, newZ);
-      result.addToCoeff(reduced, coeff);
+    for (BigInteger coeff : A) {
+      result = result.multiply(x).add(coeff).mod(modulus);
     }
 
     return result;
   }
+
+  /**
+   * Производная полинома.
+   *
+   * @param A полином
+   * @return производная
+   */
+  public static BigInteger[] derivative(BigInteger[] A) {
+    if (A.length <= 1) {
+      return new BigInteger[]{BigInteger.ZERO};
+    }
+
+    BigInteger[] res = new BigInteger[A.length - 1];
+
+    for (int i = 0; i < res.length; i++) {
+      res[i] = A[i].multiply(BigInteger.valueOf(A.length - 1 - i));
+    }
+
+    return res;
+  }
+
+  /**
+   * Построение функции F(x,y,z).
+   *
+   * @param H функция H(y)
+   * @param c свободный член
+   * @return функция F(x,y,z)
+   */
+  public static MultivariatePolynomial buildF(BigInteger[] H, BigInteger c) {
+    MultivariatePolynomial F = new MultivariatePolynomial();
+
+    F.addTerm(BigInteger.ONE, new Monomial(0, 0, 1));
+
+    for (int i = 1; i < H.length; i++) {
+      F.addTerm(H[i], new Monomial(1, H.length - i - 1, 0));
+    }
+
+    F.addTerm(c, new Monomial(0, 0, 0));
+
+    return F;
+  }
 }
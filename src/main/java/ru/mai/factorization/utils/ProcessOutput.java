@@ -0,0 +1,76 @@
+package ru.mai.factorization.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ожидание завершения внешнего процесса с возможностью отмены.
+ *
+ * <p>Чтение stdout блокируется и не реагирует на прерывание потока, поэтому вывод читается
+ * отдельной задачей, а вызывающий поток ждет в {@link Process#waitFor()}. Если поток прерван,
+ * процесс завершается принудительно, и отмененная задача не оставляет после себя работающих
+ * утилит.
+ */
+public class ProcessOutput {
+
+  /**
+   * Потоки чтения вывода. Чтение блокирующее, поэтому общий ForkJoinPool для него не подходит.
+   */
+  private static final ExecutorService READERS = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "process-output");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Чтение всего вывода процесса и ожидание его завершения.
+   *
+   * @param process запущенный процесс
+   * @return строки stdout; код завершения доступен через {@link Process#exitValue()}
+   * @throws IOException          исключение при чтении вывода
+   * @throws InterruptedException исключение, если поток прерван; процесс при этом завершается
+   */
+  public static List<String> await(Process process) throws IOException, InterruptedException {
+    CompletableFuture<List<String>> output =
+        CompletableFuture.supplyAsync(() -> read(process), READERS);
+
+    try {
+      process.waitFor();
+      return output.get();
+    } catch (InterruptedException e) {
+      process.destroyForcibly();
+      throw e;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException io) {
+        throw io.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private static List<String> read(Process process) {
+    List<String> lines = new ArrayList<>();
+
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return lines;
+  }
+}
@@ -0,0 +1,66 @@
+package ru.mai.factorization.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Временный рабочий каталог задачи факторизации.
+ *
+ * <p>Каждая задача получает собственный каталог, поэтому параллельные задачи не перезаписывают
+ * файлы друг друга. Каталог удаляется вместе с содержимым при закрытии.
+ */
+public class Workspace implements AutoCloseable {
+
+  private final Path directory;
+
+  /**
+   * Создание рабочего каталога во временной директории системы.
+   *
+   * @throws IOException исключение при создании каталога
+   */
+  public Workspace() throws IOException {
+    this.directory = Files.createTempDirectory("rsa-factorization-");
+  }
+
+  /**
+   * Путь к файлу внутри рабочего каталога.
+   *
+   * @param name имя файла
+   * @return путь к файлу
+   */
+  public Path resolve(String name) {
+    return directory.resolve(name);
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Удаление рабочего каталога вместе с содержимым.
+   *
+   * @throws IOException исключение при удалении файлов
+   */
+  @Override
+  public void close() throws IOException {
+    if (!Files.exists(directory)) {
+      return;
+    }
+
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+        try {
+          Files.deleteIfExists(path);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package ru.mai.factorization.worker;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Интерфейс для долгоживущего процесса внешней утилиты, принимающего задачи через pipe.
+ *
+ * <p>Протокол построчный: запрос - текст, за которым следует строка END; ответ - строки вывода,
+ * за которыми следует строка END. Ошибка задачи передается строкой "ERROR сообщение" перед END,
+ * процесс при этом продолжает работу.
+ */
+public interface ToolWorker extends AutoCloseable {
+
+  /**
+   * Строка, завершающая запрос и ответ.
+   */
+  String END = "END";
+
+  /**
+   * Префикс строки ответа с ошибкой задачи.
+   */
+  String ERROR = "ERROR ";
+
+  /**
+   * Запрос, записываемый прямо в pipe процесса, без сборки в одну строку.
+   */
+  @FunctionalInterface
+  interface Request {
+
+    /**
+     * Запись запроса без завершающей строки END. При повторе задачи вызывается еще раз.
+     *
+     * @param writer поток для записи
+     * @throws IOException исключение при записи
+     */
+    void writeTo(Writer writer) throws IOException;
+  }
+
+  /**
+   * Выполнение одной задачи.
+   *
+   * @param request запрос
+   * @return строки ответа без завершающей строки END
+   * @throws IOException          исключение при обмене данными или падении процесса
+   * @throws InterruptedException исключение при ожидании свободного процесса
+   */
+  List<String> call(Request request) throws IOException, InterruptedException;
+
+  /**
+   * Выполнение одной задачи с запросом в виде строки.
+   *
+   * @param request текст запроса без завершающей строки END
+   * @return строки ответа без завершающей строки END
+   * @throws IOException          исключение при обмене данными или падении процесса
+   * @throws InterruptedException исключение при ожидании свободного процесса
+   */
+  default List<String> call(String request) throws IOException, InterruptedException {
+    return call(writer -> writer.write(request));
+  }
+
+  /**
+   * Остановка процессов.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,192 @@
+package ru.mai.factorization.worker.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import ru.mai.factorization.worker.ToolWorker;
+
+/**
+ * Один долгоживущий процесс внешней утилиты. Задачи выполняются последовательно.
+ */
+public class ProcessWorker implements ToolWorker {
+
+  private final Process process;
+  private final Writer input;
+  private final BufferedReader output;
+  private volatile boolean closed;
+
+  /**
+   * Поток обмена с процессом: чтение из pipe не прерывается, поэтому вызывающий поток ждет
+   * ответа, а не читает его сам.
+   */
+  private final ExecutorService exchange = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "tool-worker");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Запуск процесса.
+   *
+   * @param command команда запуска процесса
+   * @throws IOException исключение при запуске процесса
+   */
+  public ProcessWorker(List<String> command) throws IOException {
+    ProcessBuilder pb = new ProcessBuilder(command);
+    pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+    this.process = pb.start();
+    this.input = new BufferedWriter(
+        new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+    this.output = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Выполнение задачи. Если поток прерван в ожидании ответа, процесс завершается: прервать задачу
+   * внутри утилиты иначе нельзя, а пул заменит процесс новым.
+   *
+   * @param request запрос, записывается в pipe потоком обмена
+   * @return строки ответа без завершающей строки END
+   * @throws IOException          исключение при обмене данными или падении процесса
+   * @throws InterruptedException исключение, если поток прерван в ожидании ответа
+   */
+  @Override
+  public synchronized List<String> call(Request request) throws IOException, InterruptedException {
+    Future<List<String>> response = exchange.submit(() -> exchange(request));
+
+    try {
+      return response.get();
+    } catch (InterruptedException e) {
+      close();
+      throw e;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException io) {
+        throw io;
+      }
+
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * Проверка, что процесс еще работает. Закрытый процесс считается завершенным сразу, так как
+   * {@link Process#destroy()} завершает его асинхронно.
+   *
+   * @return true, если процесс жив и не закрыт
+   */
+  public boolean isAlive() {
+    return !closed && process.isAlive();
+  }
+
+  private List<String> exchange(Request request) throws IOException {
+    LineEndWriter writer = new LineEndWriter(input);
+    request.writeTo(writer);
+
+    if (!writer.atLineStart) {
+      input.write('\n');
+    }
+
+    input.write(END);
+    input.write('\n');
+    input.flush();
+
+    List<String> lines = new ArrayList<>();
+    String error = null;
+    String line;
+
+    while ((line = output.readLine()) != null) {
+      if (END.equals(line)) {
+        if (error != null) {
+          throw new RuntimeException("Внешняя утилита вернула ошибку: " + error);
+        }
+
+        return lines;
+      }
+
+      if (line.startsWith(ERROR)) {
+        error = line.substring(ERROR.length());
+      } else {
+        lines.add(line);
+      }
+    }
+
+    throw new IOException("Процесс внешней утилиты завершился до конца ответа"
+        + (process.isAlive() ? "" : ", код: " + process.exitValue()));
+  }
+
+  /**
+   * Остановка процесса и запущенных им процессов. Процесс завершается до закрытия pipe: поток
+   * обмена может быть заблокирован записью в переполненный pipe и держать его блокировку.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    process.descendants().forEach(ProcessHandle::destroy);
+    process.destroy();
+    exchange.shutdownNow();
+
+    try {
+      input.close();
+    } catch (IOException ignored) {
+      // Процесс уже завершился и закрыл pipe.
+    }
+  }
+
+  /**
+   * Поток записи запроса, запоминающий, закончился ли запрос переводом строки. Закрытие потока
+   * не закрывает pipe процесса.
+   */
+  private static class LineEndWriter extends FilterWriter {
+
+    private boolean atLineStart = true;
+
+    LineEndWriter(Writer out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+      out.write(c);
+      atLineStart = c == '\n';
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+      out.write(buffer, offset, length);
+
+      if (length > 0) {
+        atLineStart = buffer[offset + length - 1] == '\n';
+      }
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+      out.write(text, offset, length);
+
+      if (length > 0) {
+        atLineStart = text.charAt(offset + length - 1) == '\n';
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.flush();
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package ru.mai.factorization.worker.impl;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import ru.mai.factorization.worker.ToolWorker;
+
+/**
+ * Пул долгоживущих процессов внешней утилиты.
+ *
+ * <p>Процессы запускаются при первой задаче, которой не хватило свободного процесса, и дальше
+ * переиспользуются, поэтому время запуска утилиты (для Sage - секунды) платится один раз на
+ * процесс, а не на задачу. Упавший процесс заменяется новым, а задача повторяется на нем один раз.
+ */
+public class WorkerPool implements ToolWorker {
+
+  private static final Logger LOGGER = System.getLogger(WorkerPool.class.getName());
+
+  private static final long WAIT_MILLIS = 100;
+
+  private final List<String> command;
+  private final int size;
+  private final BlockingQueue<ProcessWorker> idle;
+  private final List<ProcessWorker> started = new ArrayList<>();
+  private boolean closed;
+
+  /**
+   * Конструктор.
+   *
+   * @param command команда запуска процесса
+   * @param size    максимальное число процессов
+   */
+  public WorkerPool(List<String> command, int size) {
+    if (command.isEmpty()) {
+      throw new IllegalArgumentException("Не задана команда запуска внешней утилиты.");
+    }
+
+    if (size < 1) {
+      throw new IllegalArgumentException("Размер пула должен быть положительным.");
+    }
+
+    this.command = List.copyOf(command);
+    this.size = size;
+    this.idle = new ArrayBlockingQueue<>(size);
+  }
+
+  /**
+   * Выполнение задачи на свободном процессе.
+   *
+   * @param request запрос
+   * @return строки ответа без завершающей строки END
+   * @throws IOException          исключение, если задача не выполнилась и на новом процессе
+   * @throws InterruptedException исключение при ожидании свободного процесса
+   */
+  @Override
+  public List<String> call(Request request) throws IOException, InterruptedException {
+    ProcessWorker worker = acquire();
+
+    try {
+      if (!worker.isAlive()) {
+        worker = restart(worker);
+      }
+
+      try {
+        return worker.call(request);
+      } catch (IOException e) {
+        LOGGER.log(Level.WARNING, "Процесс внешней утилиты упал, запускается новый", e);
+        worker = restart(worker);
+        return worker.call(request);
+      }
+    } finally {
+      release(worker);
+    }
+  }
+
+  /**
+   * Остановка всех процессов пула.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    started.forEach(ProcessWorker::close);
+    started.clear();
+    idle.clear();
+  }
+
+  private ProcessWorker acquire() throws IOException, InterruptedException {
+    while (true) {
+      ProcessWorker worker = idle.poll();
+
+      if (worker != null) {
+        return worker;
+      }
+
+      synchronized (this) {
+        if (closed) {
+          throw new IllegalStateException("Пул процессов закрыт.");
+        }
+
+        if (started.size() < size) {
+          return start();
+        }
+      }
+
+      // Место в пуле может освободиться и без возврата процесса, если новый процесс не запустился.
+      worker = idle.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+
+      if (worker != null) {
+        return worker;
+      }
+    }
+  }
+
+  /**
+   * Возврат процесса в пул. Процесс, закрытый при прерывании задачи или упавший, не возвращается,
+   * а освобождает место для нового.
+   */
+  private void release(ProcessWorker worker) {
+    synchronized (this) {
+      if (closed || !started.contains(worker) || !worker.isAlive()) {
+        started.remove(worker);
+        worker.close();
+        return;
+      }
+    }
+
+    idle.add(worker);
+  }
+
+  private synchronized ProcessWorker restart(ProcessWorker worker) throws IOException {
+    worker.close();
+    started.remove(worker);
+
+    return start();
+  }
+
+  private synchronized ProcessWorker start() throws IOException {
+    ProcessWorker worker = new ProcessWorker(command);
+    started.add(worker);
+
+    return worker;
+  }
+}
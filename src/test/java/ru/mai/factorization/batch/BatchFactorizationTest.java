@@ -0,0 +1,139 @@
+package ru.mai.factorization.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import ru.mai.factorization.reduction.LatticeReducer;
+import ru.mai.factorization.solver.RootSolver;
+import ru.mai.factorization.utils.FlatJson;
+
+public class BatchFactorizationTest {
+
+  private static final BigInteger P = new BigInteger("683209007134751");
+  private static final BigInteger Q = new BigInteger("677726714766923");
+
+  /**
+   * Редукция не выполняется: поиск корня в тестах не смотрит на векторы.
+   */
+  private static final LatticeReducer IDENTITY = lattice -> lattice;
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    test1();
+    test2();
+    test3();
+    System.out.println("BatchFactorizationTest: OK");
+  }
+
+  /**
+   * Верный корень дает статус ok с делителями, неверная строка - error с номером строки,
+   * невыполнимое условие на определитель - infeasible. Вход в JSONL и в CSV.
+   *
+   * @throws IOException          исключение при записи результатов
+   * @throws InterruptedException исключение при ожидании задач
+   */
+  public static void test1() throws IOException, InterruptedException {
+    RootSolver solver = (polys, r) -> P.add(Q);
+    String jsonl = """
+        {"id":"key"}
+        {"id":"small-m","m":"1","t":"0"}
+        not json
+        """;
+    Map<String, Map<String, String>> results = run(solver, jsonl, false);
+
+    check(results.get("key"), "ok");
+    check(results.get("small-m"), "infeasible");
+    check(results.get("3"), "error");
+
+    String csv = """
+        id,m,t
+        csv-key,4,2
+        csv-small,1,0
+        """;
+    Map<String, Map<String, String>> csvResults = run(solver, csv, true);
+
+    check(csvResults.get("csv-key"), "ok");
+    check(csvResults.get("csv-small"), "infeasible");
+
+    if (!P.toString().equals(results.get("key").get("p"))
+        || !Q.toString().equals(results.get("key").get("q"))) {
+      throw new AssertionError("Неверные делители: " + results.get("key"));
+    }
+  }
+
+  /**
+   * Корень, который не раскладывает N (y^2 - 4N не квадрат или меньше нуля), дает not_found без
+   * делителей, а не ok.
+   *
+   * @throws IOException          исключение при записи результатов
+   * @throws InterruptedException исключение при ожидании задач
+   */
+  public static void test2() throws IOException, InterruptedException {
+    for (BigInteger y : new BigInteger[]{P.add(Q).add(BigInteger.TWO), BigInteger.TEN}) {
+      Map<String, String> result = run((polys, r) -> y, "{\"id\":\"key\"}\n", false).get("key");
+      check(result, "not_found");
+
+      if (result.containsKey("p") || result.containsKey("q")) {
+        throw new AssertionError("Делители выведены для неверного корня: " + result);
+      }
+    }
+  }
+
+  /**
+   * Ошибка поиска корня попадает в поле error, остальные задачи выполняются.
+   *
+   * @throws IOException          исключение при записи результатов
+   * @throws InterruptedException исключение при ожидании задач
+   */
+  public static void test3() throws IOException, InterruptedException {
+    RootSolver failing = (polys, r) -> {
+      throw new IOException("сбой поиска корня");
+    };
+    Map<String, Map<String, String>> results = run(failing,
+        "{\"id\":\"a\"}\n{\"id\":\"b\",\"m\":\"1\",\"t\":\"0\"}\n", false);
+
+    check(results.get("a"), "error");
+    check(results.get("b"), "infeasible");
+
+    if (!results.get("a").get("error").contains("сбой поиска корня")) {
+      throw new AssertionError("Нет текста ошибки: " + results.get("a"));
+    }
+  }
+
+  private static Map<String, Map<String, String>> run(RootSolver solver, String input,
+      boolean csv) throws IOException, InterruptedException {
+    Map<String, String> defaults = new HashMap<>();
+    defaults.put("n", "4");
+    defaults.put("e", "65537");
+    defaults.put("N", P.multiply(Q).toString());
+    defaults.put("d0", "1194815970136178989043022773021446917892638039973690818583035905");
+    defaults.put("M", BigInteger.TWO.pow(210).toString());
+    defaults.put("m", "4");
+    defaults.put("t", "2");
+    defaults.put("delta", "3");
+
+    StringWriter output = new StringWriter();
+
+    try (BatchFactorization batch = new BatchFactorization(2, IDENTITY, solver, false)) {
+      batch.run(new BufferedReader(new StringReader(input)), csv, defaults, output);
+    }
+
+    Map<String, Map<String, String>> results = new HashMap<>();
+
+    for (String line : output.toString().split("\n")) {
+      Map<String, String> fields = FlatJson.parse(line);
+      results.put(fields.get("id"), fields);
+    }
+
+    return results;
+  }
+
+  private static void check(Map<String, String> result, String status) {
+    if (result == null || !status.equals(result.get("status"))) {
+      throw new AssertionError("Ожидался статус " + status + ", получено " + result);
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package ru.mai.factorization.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import ru.mai.factorization.utils.FlatJson;
+
+public class FactorizationDaemonTest {
+
+  private static final BigInteger P = new BigInteger("683209007134751");
+  private static final BigInteger Q = new BigInteger("677726714766923");
+
+  public static void main(String[] args) throws Exception {
+    test1();
+    test2();
+    System.out.println("FactorizationDaemonTest: OK");
+  }
+
+  /**
+   * Задачи через TCP: ответ accepted и результат по готовности, ping и stats, а после команды
+   * shutdown из другого соединения демон перестает принимать соединения и serve возвращается.
+   *
+   * @throws Exception исключение при работе с сокетом или в потоке демона
+   */
+  public static void test1() throws Exception {
+    try (BatchFactorization batch = batch();
+        FactorizationDaemon daemon = FactorizationDaemon.tcp(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), batch, defaults())) {
+      SocketAddress address = daemon.getAddress();
+      AtomicReference<Exception> failure = new AtomicReference<>();
+      Thread serving = serve(daemon, failure);
+
+      try (Client client = new Client(SocketChannel.open(address))) {
+        check(client.request("{\"command\":\"ping\"}"), "status", "pong");
+
+        client.send("{\"id\":\"a\"}");
+        client.send("{\"id\":\"b\",\"m\":\"1\",\"t\":\"0\"}");
+        Map<String, Map<String, String>> results = new HashMap<>();
+
+        for (int i = 0; i < 4; i++) {
+          Map<String, String> line = client.receive();
+
+          if (!"accepted".equals(line.get("status"))) {
+            results.put(line.get("id"), line);
+          }
+        }
+
+        check(results.get("a"), "status", "ok");
+        check(results.get("a"), "p", P.toString());
+        check(results.get("a"), "q", Q.toString());
+        check(results.get("b"), "status", "infeasible");
+
+        Map<String, String> stats = client.request("{\"command\":\"stats\"}");
+        check(stats, "running", "0");
+        check(stats, "completed", "2");
+      }
+
+      try (Client client = new Client(SocketChannel.open(address))) {
+        check(client.request("{\"command\":\"shutdown\"}"), "status", "stopping");
+
+        if (client.reader.readLine() != null) {
+          throw new AssertionError("Соединение не закрыто после shutdown");
+        }
+      }
+
+      stopped(serving, failure);
+
+      try (SocketChannel ignored = SocketChannel.open(address)) {
+        throw new AssertionError("Демон принимает соединения после shutdown");
+      } catch (ConnectException expected) {
+        // Ожидаемое исключение.
+      }
+    }
+  }
+
+  /**
+   * Задача через Unix-сокет; после shutdown файл сокета удаляется.
+   *
+   * @throws Exception исключение при работе с сокетом или в потоке демона
+   */
+  public static void test2() throws Exception {
+    Path directory = Files.createTempDirectory("daemon");
+    Path socket = directory.resolve("factorization.sock");
+
+    try (BatchFactorization batch = batch();
+        FactorizationDaemon daemon = FactorizationDaemon.unix(socket, batch, defaults())) {
+      AtomicReference<Exception> failure = new AtomicReference<>();
+      Thread serving = serve(daemon, failure);
+
+      try (Client client = new Client(SocketChannel.open(daemon.getAddress()))) {
+        check(client.request("{\"id\":\"unix\"}"), "status", "accepted");
+        check(client.receive(), "status", "ok");
+        check(client.request("{\"command\":\"shutdown\"}"), "status", "stopping");
+      }
+
+      stopped(serving, failure);
+
+      if (Files.exists(socket)) {
+        throw new AssertionError("Файл сокета не удален после shutdown");
+      }
+    } finally {
+      Files.deleteIfExists(socket);
+      Files.delete(directory);
+    }
+  }
+
+  /**
+   * Клиент демона: запросы пишутся прямо в канал, ответы читаются построчно.
+   */
+  private static final class Client implements AutoCloseable {
+
+    private final SocketChannel channel;
+    private final BufferedReader reader;
+
+    private Client(SocketChannel channel) {
+      this.channel = channel;
+      this.reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+    }
+
+    private void send(String line) throws IOException {
+      ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+
+    private Map<String, String> receive() throws IOException {
+      String line = reader.readLine();
+
+      if (line == null) {
+        throw new AssertionError("Демон закрыл соединение без ответа");
+      }
+
+      return FlatJson.parse(line);
+    }
+
+    private Map<String, String> request(String line) throws IOException {
+      send(line);
+      return receive();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  private static BatchFactorization batch() {
+    return new BatchFactorization(2, lattice -> lattice, (polys, r) -> P.add(Q), false);
+  }
+
+  private static Map<String, String> defaults() {
+    Map<String, String> defaults = new HashMap<>();
+    defaults.put("n", "4");
+    defaults.put("e", "65537");
+    defaults.put("N", P.multiply(Q).toString());
+    defaults.put("d0", "1194815970136178989043022773021446917892638039973690818583035905");
+    defaults.put("M", BigInteger.TWO.pow(210).toString());
+    defaults.put("m", "4");
+    defaults.put("t", "2");
+    defaults.put("delta", "3");
+    return defaults;
+  }
+
+  private static Thread serve(FactorizationDaemon daemon, AtomicReference<Exception> failure) {
+    Thread thread = new Thread(() -> {
+      try {
+        daemon.serve();
+      } catch (Exception e) {
+        failure.set(e);
+      }
+    }, "daemon-test");
+    thread.start();
+    return thread;
+  }
+
+  private static void stopped(Thread serving, AtomicReference<Exception> failure)
+      throws Exception {
+    serving.join(TimeUnit.SECONDS.toMillis(10));
+
+    if (serving.isAlive()) {
+      throw new AssertionError("serve не вернулся после shutdown");
+    }
+
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+  }
+
+  private static void check(Map<String, String> fields, String key, String value) {
+    if (fields == null || !value.equals(fields.get(key))) {
+      throw new AssertionError("Ожидалось " + key + " = " + value + ", получено " + fields);
+    }
+  }
+}
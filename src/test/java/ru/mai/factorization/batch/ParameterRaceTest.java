@@ -0,0 +1,86 @@
+package ru.mai.factorization.batch;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import ru.mai.factorization.lattice.LatticeShape;
+import ru.mai.factorization.reduction.LatticeReducer;
+import ru.mai.factorization.solver.RootSolver;
+
+public class ParameterRaceTest {
+
+  private static final BigInteger P = new BigInteger("683209007134751");
+  private static final BigInteger Q = new BigInteger("677726714766923");
+  private static final BigInteger N = P.multiply(Q);
+  private static final BigInteger E = BigInteger.valueOf(65537);
+  private static final BigInteger D0 = new BigInteger(
+      "1194815970136178989043022773021446917892638039973690818583035905");
+  private static final BigInteger M = BigInteger.ONE.shiftLeft(210);
+  private static final BigDecimal DELTA = BigDecimal.valueOf(3);
+
+  private static final LatticeShape SLOW = new LatticeShape(4, 4, 1);
+  private static final LatticeShape WRONG = new LatticeShape(4, 4, 2);
+  private static final LatticeShape WINNER = new LatticeShape(4, 4, 3);
+
+  public static void main(String[] args) throws InterruptedException {
+    test1();
+    System.out.println("ParameterRaceTest: OK");
+  }
+
+  /**
+   * Побеждает форма, первой давшая делители с p * q = N: форма с корнем, не раскладывающим N,
+   * завершается раньше, но не побеждает, а долгая форма отменяется до возврата из гонки.
+   * Формы различаются в заглушках по размерности решетки.
+   *
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public static void test1() throws InterruptedException {
+    CountDownLatch others = new CountDownLatch(2);
+    AtomicBoolean cancelled = new AtomicBoolean();
+    ThreadLocal<Integer> dimension = new ThreadLocal<>();
+
+    LatticeReducer reducer = lattice -> {
+      dimension.set(lattice.length);
+
+      if (lattice.length == SLOW.dimension()) {
+        others.countDown();
+
+        try {
+          Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+        } catch (InterruptedException e) {
+          cancelled.set(true);
+          throw e;
+        }
+      } else if (lattice.length == WINNER.dimension()) {
+        others.await();
+      }
+
+      return lattice;
+    };
+    RootSolver solver = (polys, r) -> {
+      if (dimension.get() == WRONG.dimension()) {
+        others.countDown();
+        return P.add(Q).add(BigInteger.TWO);
+      }
+
+      return P.add(Q);
+    };
+
+    long start = System.nanoTime();
+    ParameterRace.Result result = new ParameterRace(3, reducer, solver, false)
+        .run(4, List.of(SLOW, WRONG, WINNER), N, E, D0, M, DELTA);
+    long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+
+    if (result == null || !WINNER.equals(result.shape())
+        || !P.equals(result.dividers().p()) || !Q.equals(result.dividers().q())) {
+      throw new AssertionError("Победила не форма " + WINNER + ": " + result);
+    }
+
+    if (!cancelled.get() || seconds >= 60) {
+      throw new AssertionError("Долгая форма не отменена до возврата из гонки");
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package ru.mai.factorization.lattice;
+
+import java.math.BigInteger;
+import ru.mai.factorization.RSALatticeFactorization;
+import ru.mai.factorization.polynomial.KroneckerSubstitution;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+import ru.mai.factorization.utils.Polynomial;
+
+public class LatticePlanTest {
+
+  private static final BigInteger N = new BigInteger("463028995904606051817018641173");
+  private static final BigInteger C = new BigInteger(
+      "89508787964537769839958980218674109695435455229928587492654228177046463498977617360027022");
+  private static final BigInteger E = new BigInteger(
+      "17245940996311682203024873234841963839090492688579713115090719406582906246851863033916922");
+  private static final BigInteger X = new BigInteger("680462339813605");
+  private static final BigInteger Y = new BigInteger("2041387019440815");
+  private static final BigInteger Z = new BigInteger(
+      "5788687978307547385658367719917397827407255326981854011616875");
+
+  public static void main(String[] args) {
+    test1();
+    test2();
+    test3();
+    System.out.println("LatticePlanTest: OK");
+  }
+
+  /**
+   * Определитель и длины столбцов плана совпадают с диагональю решетки примера из статьи после
+   * приведения коэффициентов по модулю e^m.
+   */
+  public static void test1() {
+    PreparedLattice prepared = RSALatticeFactorization.prepare(N, C, E, 4, 4, 2, X, Y, Z);
+
+    if (prepared == null) {
+      throw new AssertionError("Решетка примера из статьи не подготовлена");
+    }
+
+    LatticePlan plan = RSALatticeFactorization.plan(E, 4, 4, 2, X, Y, Z);
+    check(plan, diagonal(prepared.matrix()), "пример из статьи");
+  }
+
+  /**
+   * План совпадает с диагональю решеток разных форм, построенных по шаблону.
+   */
+  public static void test2() {
+    for (int n = 2; n <= 4; n++) {
+      for (int m = 1; m <= 4; m++) {
+        for (int t = 0; t <= 2; t++) {
+          LatticeShape shape = new LatticeShape(n, m, t);
+          LatticeTemplate template = LatticeTemplate.of(shape);
+          BigInteger[][] matrix = template.matrix(scaledPowers(n, m),
+              new ScaledLattice(template.getBasis(), X, Y, Z));
+          LatticePlan plan = LatticePlan.of(template.getShifts(), E, m, X, Y, Z);
+
+          if (plan.dimension() != shape.dimension() || matrix.length != shape.dimension()) {
+            throw new AssertionError("Размерность не совпала для формы " + shape);
+          }
+
+          check(plan, diagonal(matrix), shape.toString());
+        }
+      }
+    }
+  }
+
+  /**
+   * Планы одной формы равны и сравниваются по содержимому массива длин столбцов.
+   */
+  public static void test3() {
+    LatticePlan plan = RSALatticeFactorization.plan(E, 4, 4, 2, X, Y, Z);
+    LatticePlan same = RSALatticeFactorization.plan(E, 4, 4, 2, X, Y, Z);
+    LatticePlan other = RSALatticeFactorization.plan(E, 4, 4, 1, X, Y, Z);
+
+    if (plan.columnBits() == same.columnBits() || !plan.equals(same)
+        || plan.hashCode() != same.hashCode() || plan.equals(other)) {
+      throw new AssertionError("Неверное сравнение планов");
+    }
+  }
+
+  /**
+   * Степени F^k * e^(m-k) без приведения коэффициентов: диагональный коэффициент при z^k равен
+   * e^(m-k), как и после приведения.
+   */
+  static MultivariatePolynomial[] scaledPowers(int n, int m) {
+    MultivariatePolynomial[] powers = KroneckerSubstitution.powers(
+        Polynomial.buildF(Polynomial.phi(n, N), C), m);
+
+    for (int k = 0; k <= m; k++) {
+      powers[k] = powers[k].multiply(E.pow(m - k));
+    }
+
+    return powers;
+  }
+
+  /**
+   * Диагональ треугольной решетки в порядке столбцов. Каждая строка заканчивается в своем
+   * столбце, и после упорядочивания строк по последнему ненулевому столбцу матрица нижняя
+   * треугольная.
+   *
+   * @param matrix квадратная матрица решетки
+   * @return диагональные элементы по столбцам
+   */
+  static BigInteger[] diagonal(BigInteger[][] matrix) {
+    int w = matrix.length;
+    BigInteger[] diagonal = new BigInteger[w];
+
+    for (BigInteger[] row : matrix) {
+      if (row.length != w) {
+        throw new AssertionError("Решетка не квадратная");
+      }
+
+      int pivot = w - 1;
+
+      while (pivot >= 0 && row[pivot].signum() == 0) {
+        pivot--;
+      }
+
+      if (pivot < 0 || diagonal[pivot] != null) {
+        throw new AssertionError("Решетка не треугольная, столбец " + pivot);
+      }
+
+      diagonal[pivot] = row[pivot];
+    }
+
+    return diagonal;
+  }
+
+  private static void check(LatticePlan plan, BigInteger[] diagonal, String name) {
+    BigInteger product = BigInteger.ONE;
+
+    for (int j = 0; j < diagonal.length; j++) {
+      product = product.multiply(diagonal[j]);
+      int bits = diagonal[j].abs().bitLength();
+
+      // ceil(log2 d) для d, не являющегося степенью двойки, равен длине d в битах.
+      if (Math.abs(plan.columnBits()[j] - bits) > 1) {
+        throw new AssertionError(name + ": длина столбца " + j + " " + plan.columnBits()[j]
+            + " бит, на диагонали " + bits + " бит");
+      }
+    }
+
+    if (!product.abs().equals(plan.determinant())) {
+      throw new AssertionError(name + ": определитель плана не равен произведению диагонали");
+    }
+  }
+}
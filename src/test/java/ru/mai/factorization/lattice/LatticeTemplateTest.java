@@ -0,0 +1,117 @@
+package ru.mai.factorization.lattice;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import ru.mai.factorization.tuple.IndexTriple;
+
+public class LatticeTemplateTest {
+
+  private static final BigInteger E = new BigInteger(
+      "17245940996311682203024873234841963839090492688579713115090719406582906246851863033916922");
+  private static final BigInteger X = new BigInteger("680462339813605");
+  private static final BigInteger Y = new BigInteger("2041387019440815");
+
+  public static void main(String[] args) {
+    test1();
+    System.out.println("LatticeTemplateTest: OK");
+  }
+
+  /**
+   * После удаления бесполезных сдвигов решетка остается квадратной и треугольной, определитель
+   * плана равен произведению ее диагонали, каждый удаленный сдвиг имеет X^i Y^j Z^k > e^k, а
+   * каждый оставшийся такой сдвиг нельзя удалить, потому что его диагональный столбец занят
+   * другой строкой.
+   */
+  public static void test1() {
+    int prunedShapes = 0;
+
+    // Z растет, и все больше сдвигов с k > 0 становятся бесполезными.
+    for (int zBits = 150; zBits <= 330; zBits += 30) {
+      BigInteger Z = BigInteger.ONE.shiftLeft(zBits).add(BigInteger.ONE);
+
+      for (int n = 2; n <= 4; n++) {
+        for (int m = 1; m <= 4; m++) {
+          for (int t = 0; t <= 2; t++) {
+            LatticeShape shape = new LatticeShape(n, m, t);
+            LatticeTemplate full = LatticeTemplate.of(shape);
+            LatticeTemplate pruned = full.prune(E, X, Y, Z);
+
+            if (pruned != full) {
+              prunedShapes++;
+            }
+
+            check(full, pruned, Z, shape + ", Z ~ 2^" + zBits);
+          }
+        }
+      }
+    }
+
+    if (prunedShapes == 0) {
+      throw new AssertionError("Ни одна решетка не была сокращена");
+    }
+  }
+
+  private static void check(LatticeTemplate full, LatticeTemplate pruned, BigInteger Z,
+      String name) {
+    int m = full.getShape().m();
+    List<IndexTriple> kept = pruned.getShifts();
+    List<IndexTriple> dropped = new ArrayList<>(full.getShifts());
+
+    if (!dropped.containsAll(kept)) {
+      throw new AssertionError(name + ": появились новые сдвиги");
+    }
+
+    dropped.removeAll(kept);
+
+    for (IndexTriple shift : dropped) {
+      if (diagonal(shift, Z).compareTo(E.pow(shift.k())) <= 0) {
+        throw new AssertionError(name + ": удален полезный сдвиг " + shift);
+      }
+    }
+
+    BigInteger[][] matrix = pruned.matrix(LatticePlanTest.scaledPowers(full.getShape().n(), m),
+        new ScaledLattice(pruned.getBasis(), X, Y, Z));
+    BigInteger[] diagonal = LatticePlanTest.diagonal(matrix);
+    BigInteger product = BigInteger.ONE;
+
+    for (BigInteger entry : diagonal) {
+      product = product.multiply(entry);
+    }
+
+    if (!product.abs().equals(LatticePlan.of(kept, E, m, X, Y, Z).determinant())) {
+      throw new AssertionError(name + ": определитель плана не равен произведению диагонали");
+    }
+
+    for (int row = 0; row < kept.size(); row++) {
+      IndexTriple shift = kept.get(row);
+
+      if (diagonal(shift, Z).compareTo(E.pow(shift.k())) > 0 && !isShared(matrix, row)) {
+        throw new AssertionError(name + ": не удален бесполезный сдвиг " + shift);
+      }
+    }
+  }
+
+  /**
+   * Проверка, что диагональный столбец строки занят еще какой-то строкой.
+   */
+  private static boolean isShared(BigInteger[][] matrix, int row) {
+    int pivot = matrix[row].length - 1;
+
+    while (matrix[row][pivot].signum() == 0) {
+      pivot--;
+    }
+
+    for (int other = 0; other < matrix.length; other++) {
+      if (other != row && matrix[other][pivot].signum() != 0) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static BigInteger diagonal(IndexTriple shift, BigInteger Z) {
+    return X.pow(shift.i()).multiply(Y.pow(shift.j())).multiply(Z.pow(shift.k()));
+  }
+}
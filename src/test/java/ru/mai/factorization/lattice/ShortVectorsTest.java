@@ -0,0 +1,104 @@
+package ru.mai.factorization.lattice;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import ru.mai.factorization.monomial.Monomial;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+
+public class ShortVectorsTest {
+
+  private static final BigInteger X = new BigInteger("680462339813605");
+  private static final BigInteger Y = new BigInteger("2041387019440815");
+  private static final BigInteger Z = X.multiply(Y);
+
+  public static void main(String[] args) {
+    test1();
+    System.out.println("ShortVectorsTest: OK");
+  }
+
+  /**
+   * Ленивое размасштабирование дает те же полиномы в том же порядке, что и размасштабирование
+   * всех строк с сортировкой по норме масштабированного вектора, а размасштабируются только
+   * запрошенные строки.
+   */
+  public static void test1() {
+    Random random = new Random(20);
+    List<Monomial> basis = LatticeTemplate.of(new LatticeShape(4, 3, 1)).getBasis();
+    ScaledLattice lattice = new ScaledLattice(basis, X, Y, Z);
+    int w = lattice.dimension();
+
+    for (int test = 0; test < 20; test++) {
+      BigInteger[][] reduced = new BigInteger[w][];
+
+      for (int i = 0; i < w; i++) {
+        reduced[i] = randomRow(random, lattice, i % 7 == 3 ? 0 : 1 + random.nextInt(4));
+      }
+
+      BigInteger[] norms = Arrays.stream(reduced).map(ShortVectorsTest::normSquared)
+          .toArray(BigInteger[]::new);
+      Integer[] order = IntStream.range(0, w)
+          .filter(i -> norms[i].signum() != 0)
+          .boxed()
+          .sorted(Comparator.comparing(i -> norms[i]))
+          .toArray(Integer[]::new);
+
+      // Условию удовлетворяет примерно треть ненулевых векторов.
+      BigInteger modulus = norms[order[order.length / 3]].multiply(BigInteger.valueOf(w)).sqrt();
+      int minimum = 1 + random.nextInt(order.length);
+      int satisfying = (int) Arrays.stream(order)
+          .filter(i -> norms[i].multiply(BigInteger.valueOf(w))
+              .compareTo(modulus.multiply(modulus)) < 0)
+          .count();
+      List<MultivariatePolynomial> eager = Arrays.stream(order)
+          .limit(Math.max(satisfying, minimum))
+          .map(i -> lattice.unscale(reduced[i]))
+          .toList();
+
+      ShortVectors lazy = ShortVectors.select(reduced, lattice, modulus, minimum);
+
+      check(lazy.size() == eager.size() && lazy.satisfyingBound() == satisfying,
+          "число векторов " + lazy.size() + " вместо " + eager.size(), test);
+      check(lazy.unscaled() == 0, "векторы размасштабированы до обращения", test);
+
+      for (int i = lazy.size() - 1; i >= 0; i -= 2) {
+        check(lazy.get(i).getTerms().equals(eager.get(i).getTerms())
+                && lazy.normSquared(i).equals(norms[order[i]]),
+            "вектор " + i + " не совпал", test);
+      }
+
+      check(lazy.unscaled() == (lazy.size() + 1) / 2, "размасштабированы лишние векторы", test);
+    }
+  }
+
+  /**
+   * Строка масштабированной решетки: случайные коэффициенты длиной bytes байт, умноженные на
+   * X^a Y^b Z^c столбца, и нули в части столбцов. При bytes = 0 строка нулевая.
+   */
+  private static BigInteger[] randomRow(Random random, ScaledLattice lattice, int bytes) {
+    BigInteger[] row = new BigInteger[lattice.dimension()];
+
+    for (int j = 0; j < row.length; j++) {
+      BigInteger coeff = bytes == 0 || random.nextInt(3) == 0
+          ? BigInteger.ZERO
+          : new BigInteger(8 * bytes, random).subtract(BigInteger.ONE.shiftLeft(8 * bytes - 1));
+      row[j] = coeff.multiply(lattice.getScale(j));
+    }
+
+    return row;
+  }
+
+  private static BigInteger normSquared(BigInteger[] vector) {
+    return Arrays.stream(vector).map(coeff -> coeff.multiply(coeff))
+        .reduce(BigInteger.ZERO, BigInteger::add);
+  }
+
+  private static void check(boolean condition, String message, int test) {
+    if (!condition) {
+      throw new AssertionError(message + ", тест " + test);
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package ru.mai.factorization.polynomial;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import ru.mai.factorization.monomial.Monomial;
+import ru.mai.factorization.utils.Polynomial;
+
+public class KroneckerSubstitutionTest {
+
+  private static final BigInteger N = new BigInteger("463028995904606051817018641173");
+
+  public static void main(String[] args) {
+    test1();
+    test2();
+    test3();
+    System.out.println("KroneckerSubstitutionTest: OK");
+  }
+
+  /**
+   * Умножение подстановкой Кронекера и умножение через хеш-таблицу совпадают с наивным
+   * произведением по всем парам членов.
+   */
+  public static void test1() {
+    Random random = new Random(1);
+
+    for (int test = 0; test < 500; test++) {
+      MultivariatePolynomial a = randomPolynomial(random);
+      MultivariatePolynomial b = randomPolynomial(random);
+      Map<Monomial, BigInteger> expected = naiveMultiply(a, b);
+
+      check(KroneckerSubstitution.multiply(a, b), expected, "multiply, тест " + test);
+      check(a.multiply(b), expected, "MultivariatePolynomial.multiply, тест " + test);
+    }
+
+    MultivariatePolynomial empty = new MultivariatePolynomial();
+    MultivariatePolynomial a = randomPolynomial(random);
+
+    check(KroneckerSubstitution.multiply(a, empty), Map.of(), "умножение на ноль");
+    check(KroneckerSubstitution.multiply(empty, a), Map.of(), "умножение нуля");
+  }
+
+  /**
+   * Все степени, построенные за один проход, совпадают с последовательными наивными
+   * умножениями, в том числе для F(x,y,z) из решетки.
+   */
+  public static void test2() {
+    Random random = new Random(2);
+    BigInteger c = new BigInteger("89508787964537769839958980218674109695435455229928587492654228");
+
+    for (int test = 0; test <= 50; test++) {
+      MultivariatePolynomial a = test == 0
+          ? Polynomial.buildF(Polynomial.phi(4, N), c)
+          : randomPolynomial(random);
+      int exp = test == 0 ? 6 : random.nextInt(5);
+      MultivariatePolynomial[] powers = KroneckerSubstitution.powers(a, exp);
+      Map<Monomial, BigInteger> expected = Map.of(new Monomial(0, 0, 0), BigInteger.ONE);
+
+      for (int k = 0; k <= exp; k++) {
+        check(powers[k], expected, "powers, тест " + test + ", степень " + k);
+        expected = naiveMultiply(expected, a.getTerms());
+      }
+
+      check(a.pow(exp), terms(powers[exp]), "pow, тест " + test);
+    }
+  }
+
+  /**
+   * Степени нулевого полинома и отказ для отрицательной степени.
+   */
+  public static void test3() {
+    MultivariatePolynomial empty = new MultivariatePolynomial();
+
+    check(KroneckerSubstitution.pow(empty, 0), Map.of(new Monomial(0, 0, 0), BigInteger.ONE),
+        "нулевая степень нуля");
+    check(KroneckerSubstitution.pow(empty, 3), Map.of(), "степень нуля");
+
+    try {
+      KroneckerSubstitution.powers(empty, -1);
+      throw new AssertionError("Отрицательная степень принята");
+    } catch (IllegalArgumentException expected) {
+      // ожидаемое исключение
+    }
+  }
+
+  /**
+   * Разреженный полином с нулевыми коэффициентами, которые {@link PackedTermMap#add} сохраняет.
+   */
+  private static MultivariatePolynomial randomPolynomial(Random random) {
+    MultivariatePolynomial poly = new MultivariatePolynomial();
+    int count = 1 + random.nextInt(12);
+    int degree = 1 + random.nextInt(6);
+
+    for (int i = 0; i < count; i++) {
+      Monomial m = new Monomial(random.nextInt(degree), random.nextInt(degree),
+          random.nextInt(degree));
+      poly.addTerm(new BigInteger(1 + random.nextInt(100), random)
+          .subtract(BigInteger.valueOf(random.nextInt(3))), m);
+    }
+
+    return poly;
+  }
+
+  private static Map<Monomial, BigInteger> naiveMultiply(MultivariatePolynomial a,
+      MultivariatePolynomial b) {
+    return naiveMultiply(a.getTerms(), b.getTerms());
+  }
+
+  private static Map<Monomial, BigInteger> naiveMultiply(Map<Monomial, BigInteger> a,
+      Map<Monomial, BigInteger> b) {
+    Map<Monomial, BigInteger> result = new HashMap<>();
+
+    for (var left : a.entrySet()) {
+      for (var right : b.entrySet()) {
+        result.merge(left.getKey().add(right.getKey()),
+            left.getValue().multiply(right.getValue()), BigInteger::add);
+      }
+    }
+
+    return nonZero(result);
+  }
+
+  private static Map<Monomial, BigInteger> terms(MultivariatePolynomial poly) {
+    return nonZero(poly.getTerms());
+  }
+
+  private static Map<Monomial, BigInteger> nonZero(Map<Monomial, BigInteger> terms) {
+    Map<Monomial, BigInteger> result = new HashMap<>();
+    terms.forEach((m, coeff) -> {
+      if (coeff.signum() != 0) {
+        result.put(m, coeff);
+      }
+    });
+    return result;
+  }
+
+  private static void check(MultivariatePolynomial actual, Map<Monomial, BigInteger> expected,
+      String name) {
+    if (!terms(actual).equals(nonZero(expected))) {
+      throw new AssertionError("Произведение не совпало с наивным: " + name);
+    }
+  }
+}
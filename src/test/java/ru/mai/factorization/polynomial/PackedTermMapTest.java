@@ -0,0 +1,192 @@
+package ru.mai.factorization.polynomial;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+public class PackedTermMapTest {
+
+  public static void main(String[] args) {
+    test1();
+    test2();
+    test3();
+    test4();
+    System.out.println("PackedTermMapTest: OK");
+  }
+
+  /**
+   * Случайная последовательность операций совпадает по результату с HashMap. Ключей немного, а
+   * таблица почти заполнена, поэтому цепочки пробирования длинные, переходят через конец массива,
+   * и удаление постоянно сдвигает элементы назад.
+   */
+  public static void test1() {
+    Random random = new Random(1);
+
+    for (int universe : new int[]{5, 10, 40, 1000}) {
+      long[] keys = new long[universe];
+
+      for (int i = 0; i < universe; i++) {
+        keys[i] = PackedTermMap.pack(random.nextInt(50), random.nextInt(50), random.nextInt(50));
+      }
+
+      PackedTermMap table = new PackedTermMap();
+      Map<Long, BigInteger> expected = new HashMap<>();
+
+      for (int step = 0; step < 100_000; step++) {
+        long key = keys[random.nextInt(universe)];
+        BigInteger value = BigInteger.valueOf(random.nextInt(7) - 3);
+
+        switch (random.nextInt(4)) {
+          case 0 -> check(Objects.equals(table.put(key, value), expected.put(key, value)),
+              "put", step);
+          case 1 -> {
+            table.add(key, value);
+            expected.merge(key, value, BigInteger::add);
+          }
+          case 2 -> {
+            table.addToCoeff(key, value);
+            BigInteger sum = expected.getOrDefault(key, BigInteger.ZERO).add(value);
+
+            if (sum.signum() == 0) {
+              expected.remove(key);
+            } else {
+              expected.put(key, sum);
+            }
+          }
+          default -> check(Objects.equals(table.remove(key), expected.remove(key)),
+              "remove", step);
+        }
+
+        if (step % 97 == 0 || universe <= 10) {
+          compare(table, expected, keys, step);
+        }
+      }
+
+      compare(table, expected, keys, -1);
+    }
+  }
+
+  /**
+   * Копия таблицы не зависит от исходной, очистка удаляет все члены.
+   */
+  public static void test2() {
+    PackedTermMap table = new PackedTermMap(3);
+
+    for (int i = 0; i < 100; i++) {
+      table.put(PackedTermMap.pack(i, 0, 0), BigInteger.valueOf(i + 1));
+    }
+
+    PackedTermMap copy = new PackedTermMap(table);
+
+    for (int i = 0; i < 100; i += 2) {
+      table.remove(PackedTermMap.pack(i, 0, 0));
+    }
+
+    check(copy.size() == 100 && table.size() == 50, "копирование", -1);
+
+    for (int i = 0; i < 100; i++) {
+      check(BigInteger.valueOf(i + 1).equals(copy.get(PackedTermMap.pack(i, 0, 0))),
+          "копирование", i);
+    }
+
+    table.clear();
+    check(table.size() == 0 && table.get(PackedTermMap.pack(1, 0, 0)) == null, "очистка", -1);
+  }
+
+  /**
+   * Сумма ключей - ключ произведения мономов, распаковка обратна упаковке.
+   */
+  public static void test3() {
+    Random random = new Random(3);
+    int half = PackedTermMap.MAX_EXPONENT / 2;
+
+    for (int i = 0; i < 10_000; i++) {
+      int[] a = {random.nextInt(half), random.nextInt(half), random.nextInt(half)};
+      int[] b = {random.nextInt(half), random.nextInt(half), random.nextInt(half)};
+      long key = PackedTermMap.pack(a[0], a[1], a[2]);
+      long product = PackedTermMap.pack(a[0] + b[0], a[1] + b[1], a[2] + b[2]);
+
+      check(key + PackedTermMap.pack(b[0], b[1], b[2]) == product, "сумма ключей", i);
+      check(PackedTermMap.x(key) == a[0] && PackedTermMap.y(key) == a[1]
+          && PackedTermMap.z(key) == a[2], "распаковка", i);
+    }
+
+    try {
+      PackedTermMap.pack(PackedTermMap.MAX_EXPONENT + 1, 0, 0);
+      throw new AssertionError("Степень вне диапазона упакована");
+    } catch (IllegalArgumentException expected) {
+      // ожидаемое исключение
+    }
+  }
+
+  /**
+   * Удаление из цепочки, переходящей через конец массива: элемент, чья домашняя ячейка лежит
+   * между удаленной ячейкой и концом массива, остается на месте, следующий за ним сдвигается.
+   */
+  public static void test4() {
+    PackedTermMap table = new PackedTermMap();
+    int last = table.capacity() - 1;
+    long a = keyWithSlot(table, last - 1, 0);
+    long b = keyWithSlot(table, last, 0);
+    long c = keyWithSlot(table, last, b + 1);
+    long d = keyWithSlot(table, 0, 0);
+
+    for (long key : new long[]{a, b, c, d}) {
+      table.put(key, BigInteger.valueOf(key));
+    }
+
+    check(table.capacity() == last + 1 && table.keyAt(0) == c && table.keyAt(1) == d,
+        "заполнение цепочки", -1);
+
+    table.remove(a);
+    Map<Long, BigInteger> expected = new HashMap<>();
+
+    for (long key : new long[]{b, c, d}) {
+      expected.put(key, BigInteger.valueOf(key));
+    }
+
+    compare(table, expected, new long[]{a, b, c, d}, -1);
+    check(table.keyAt(last) == b && table.keyAt(0) == c && table.keyAt(1) == d,
+        "сдвиг через конец массива", -1);
+
+    table.remove(b);
+    expected.remove(b);
+    compare(table, expected, new long[]{a, b, c, d}, -1);
+    check(table.keyAt(last) == c && table.keyAt(0) == d, "сдвиг через конец массива", -1);
+  }
+
+  private static long keyWithSlot(PackedTermMap table, int slot, long from) {
+    for (long key = from; ; key++) {
+      if (table.slot(key) == slot) {
+        return key;
+      }
+    }
+  }
+
+  private static void compare(PackedTermMap table, Map<Long, BigInteger> expected, long[] keys,
+      int step) {
+    check(table.size() == expected.size(), "размер", step);
+
+    for (long key : keys) {
+      check(Objects.equals(table.get(key), expected.get(key)), "get", step);
+    }
+
+    Map<Long, BigInteger> slots = new HashMap<>();
+
+    for (int i = 0; i < table.capacity(); i++) {
+      if (table.valueAt(i) != null) {
+        check(slots.put(table.keyAt(i), table.valueAt(i)) == null, "повтор ключа", step);
+      }
+    }
+
+    check(slots.equals(expected), "обход ячеек", step);
+  }
+
+  private static void check(boolean condition, String operation, int step) {
+    if (!condition) {
+      throw new AssertionError("Расхождение с HashMap: " + operation + ", шаг " + step);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package ru.mai.factorization.reduction.impl;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import ru.mai.factorization.reduction.LatticeReducer;
+import ru.mai.factorization.utils.MatrixFile;
+
+public class CheckpointReducerTest {
+
+  private static final BigInteger[][] LATTICE = {
+      {BigInteger.valueOf(7), BigInteger.valueOf(3), BigInteger.ZERO},
+      {BigInteger.valueOf(2), new BigInteger("-123456789012345678901234567890"), BigInteger.ONE},
+  };
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    test1();
+    test2();
+    System.out.println("CheckpointReducerTest: OK");
+  }
+
+  /**
+   * Повторный запуск с тем же каталогом читает базис из контрольной точки без редукции, а файлы
+   * блокировки после редукции не остаются.
+   *
+   * @throws IOException          исключение при работе с файлами
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public static void test1() throws IOException, InterruptedException {
+    Path directory = Files.createTempDirectory("checkpoint");
+
+    try {
+      AtomicInteger calls = new AtomicInteger();
+      BigInteger[][] first = new CheckpointReducer(counting(calls), directory).reduce(LATTICE);
+      BigInteger[][] second = new CheckpointReducer(counting(calls), directory).reduce(LATTICE);
+
+      check(calls.get() == 1, "редукция выполнена " + calls.get() + " раз вместо одного");
+      check(Arrays.deepEquals(first, reversed()) && Arrays.deepEquals(second, reversed()),
+          "базис из контрольной точки не совпал с редуцированным");
+      check(files(directory).equals(List.of(checkpoint(directory).getFileName().toString())),
+          "в каталоге остались лишние файлы: " + files(directory));
+    } finally {
+      delete(directory);
+    }
+  }
+
+  /**
+   * Поврежденная контрольная точка считается отсутствующей: решетка редуцируется заново, и файл
+   * перезаписывается. Заголовок с размерами больше файла отвергается при чтении.
+   *
+   * @throws IOException          исключение при работе с файлами
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public static void test2() throws IOException, InterruptedException {
+    Path directory = Files.createTempDirectory("checkpoint");
+
+    try {
+      Path checkpoint = checkpoint(directory);
+      AtomicInteger calls = new AtomicInteger();
+
+      try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(checkpoint))) {
+        out.write("RSAMAT01".getBytes());
+        out.writeInt(1 << 30);
+        out.writeInt(1 << 30);
+      }
+
+      try {
+        MatrixFile.read(checkpoint);
+        throw new AssertionError("принят заголовок с размерами больше файла");
+      } catch (IOException expected) {
+        // Ожидаемое исключение.
+      }
+
+      reduceOver(directory, checkpoint, calls, null);
+
+      byte[] valid = Files.readAllBytes(checkpoint);
+      reduceOver(directory, checkpoint, calls, Arrays.copyOf(valid, valid.length - 3));
+      reduceOver(directory, checkpoint, calls, bumpLength(valid));
+
+      MatrixFile.write(checkpoint, new BigInteger[][]{{BigInteger.ONE}});
+      reduceOver(directory, checkpoint, calls, null);
+
+      check(calls.get() == 4, "редукция выполнена " + calls.get() + " раз вместо четырех");
+    } finally {
+      delete(directory);
+    }
+  }
+
+  /**
+   * Запись содержимого в контрольную точку (null - оставить как есть) и редукция поверх нее.
+   */
+  private static void reduceOver(Path directory, Path checkpoint, AtomicInteger calls,
+      byte[] content) throws IOException, InterruptedException {
+    if (content != null) {
+      Files.write(checkpoint, content);
+    }
+
+    int before = calls.get();
+    BigInteger[][] basis = new CheckpointReducer(counting(calls), directory).reduce(LATTICE);
+
+    check(calls.get() == before + 1, "поврежденная контрольная точка не вызвала редукцию");
+    check(Arrays.deepEquals(basis, reversed())
+            && Arrays.deepEquals(MatrixFile.read(checkpoint), reversed()),
+        "контрольная точка не перезаписана");
+  }
+
+  /**
+   * Копия файла с увеличенной длиной первой записи, выходящей за конец файла.
+   */
+  private static byte[] bumpLength(byte[] valid) {
+    byte[] result = valid.clone();
+    result[16] = 0x7f;
+    return result;
+  }
+
+  private static LatticeReducer counting(AtomicInteger calls) {
+    return new LatticeReducer() {
+      @Override
+      public BigInteger[][] reduce(BigInteger[][] lattice) {
+        calls.incrementAndGet();
+        return reversed();
+      }
+
+      @Override
+      public String description() {
+        return "reversed";
+      }
+    };
+  }
+
+  private static BigInteger[][] reversed() {
+    return new BigInteger[][]{LATTICE[1].clone(), LATTICE[0].clone()};
+  }
+
+  private static Path checkpoint(Path directory) {
+    return directory.resolve(MatrixFile.digest("reversed", LATTICE) + ".reduced");
+  }
+
+  private static List<String> files(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(path -> path.getFileName().toString()).sorted().toList();
+    }
+  }
+
+  private static void delete(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package ru.mai.factorization.reduction.impl;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import ru.mai.factorization.worker.impl.WorkerPool;
+
+/**
+ * Проверка обмена с долгоживущим процессом на заглушке scripts/stand_in_worker.sh, которая
+ * возвращает матрицу без изменений. Тест запускается из корня проекта.
+ */
+public class FplllReducerTest {
+
+  public static void main(String[] args) throws Exception {
+    test1();
+    test2();
+    System.out.println("FplllReducerTest: OK");
+  }
+
+  /**
+   * Матрица, переданная процессу построчно, и матрица, записанная источником, возвращаются без
+   * изменений, в том числе матрица в несколько мегабайт, которая не помещается в буфер pipe.
+   *
+   * @throws Exception исключение при работе с процессами
+   */
+  public static void test1() throws Exception {
+    Random random = new Random(1);
+
+    try (WorkerPool pool = new WorkerPool(List.of("sh", "scripts/stand_in_worker.sh"), 1)) {
+      FplllReducer reducer = new FplllReducer(pool);
+
+      for (int[] size : new int[][]{{1, 1}, {3, 5}, {150, 1000}}) {
+        BigInteger[][] matrix = new BigInteger[size[0]][size[0]];
+
+        for (BigInteger[] row : matrix) {
+          for (int j = 0; j < row.length; j++) {
+            BigInteger value = new BigInteger(size[1], random);
+            row[j] = random.nextBoolean() ? value.negate() : value;
+          }
+        }
+
+        BigInteger[][] copy = Arrays.stream(matrix).map(BigInteger[]::clone)
+            .toArray(BigInteger[][]::new);
+
+        if (!Arrays.deepEquals(reducer.reduce(matrix), copy)) {
+          throw new AssertionError("Матрица " + size[0] + "x" + size[0] + " изменилась");
+        }
+
+        BigInteger[][] streamed = reducer.reduce(writer -> {
+          for (int i = 0; i < matrix.length; i++) {
+            FplllReducer.writeRow(writer, matrix[i], i, matrix.length);
+          }
+        });
+
+        if (!Arrays.deepEquals(streamed, copy)) {
+          throw new AssertionError("Матрица " + size[0] + "x" + size[0]
+              + " изменилась при записи источником");
+        }
+      }
+    }
+  }
+
+  /**
+   * Разбор вывода fplll: отрицательные числа, лишние скобки и пустые строки; минус без числа
+   * дает понятную ошибку разбора.
+   */
+  public static void test2() {
+    BigInteger[][] parsed = FplllReducer.parseFplllOutput(List.of(
+        "[[1 -2 30]", "", "[-4 0 123456789012345678901234567890]]"));
+    BigInteger[][] expected = {
+        {BigInteger.ONE, BigInteger.valueOf(-2), BigInteger.valueOf(30)},
+        {BigInteger.valueOf(-4), BigInteger.ZERO,
+            new BigInteger("123456789012345678901234567890")}
+    };
+
+    if (!Arrays.deepEquals(parsed, expected)) {
+      throw new AssertionError("Неверный разбор: " + Arrays.deepToString(parsed));
+    }
+
+    for (String line : List.of("[1 - 2]", "[1 2 -]", "[-]")) {
+      try {
+        FplllReducer.parseFplllOutput(List.of(line));
+        throw new AssertionError("Принята строка " + line);
+      } catch (IllegalArgumentException expectedError) {
+        if (!expectedError.getMessage().contains("минус без числа")) {
+          throw new AssertionError("Неясная ошибка разбора: " + expectedError.getMessage());
+        }
+      }
+    }
+  }
+}
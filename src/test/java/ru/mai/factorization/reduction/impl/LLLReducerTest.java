@@ -0,0 +1,312 @@
+package ru.mai.factorization.reduction.impl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class LLLReducerTest {
+
+  private static final int[] DIMENSIONS = {2, 5, 10, 20};
+  private static final int[] ENTRY_BITS = {16, 200, 1000};
+
+  public static void main(String[] args) throws InterruptedException {
+    // Параллельный пересчет включается, только если общему пулу доступно больше одного потока,
+    // поэтому параллельность задается до первого обращения к пулу, даже на одном ядре.
+    if (System.getProperty("java.util.concurrent.ForkJoinPool.common.parallelism") == null) {
+      System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "4");
+    }
+
+    test1();
+    test2();
+    test3();
+    test4();
+    System.out.println("LLLReducerTest: OK");
+  }
+
+  /**
+   * Случайные решетки: результат LLL-редуцирован и порождает ту же решетку.
+   *
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public static void test1() throws InterruptedException {
+    Random random = new Random(1);
+
+    for (int n : DIMENSIONS) {
+      for (int bits : ENTRY_BITS) {
+        BigInteger[][] lattice = randomLattice(random, n, bits);
+        BigInteger[][] reduced = new LLLReducer().reduce(lattice);
+
+        checkReduced(reduced, "LLL " + n + "x" + n + ", " + bits + " бит");
+        checkSameLattice(lattice, reduced, "LLL " + n + "x" + n + ", " + bits + " бит");
+      }
+    }
+  }
+
+  /**
+   * Точный алгоритм, на который переходит редукция при нехватке точности, и путь с плавающей
+   * точкой по отдельности дают LLL-редуцированный базис той же решетки.
+   *
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public static void test2() throws InterruptedException {
+    Random random = new Random(2);
+
+    for (int n : DIMENSIONS) {
+      for (int bits : ENTRY_BITS) {
+        BigInteger[][] lattice = randomLattice(random, n, bits);
+        BigInteger[][] exact = copy(lattice);
+        new LLLReducer().reduceExact(exact);
+
+        checkReduced(exact, "точный LLL " + n + "x" + n + ", " + bits + " бит");
+        checkSameLattice(lattice, exact, "точный LLL " + n + "x" + n + ", " + bits + " бит");
+
+        BigInteger[][] floating = copy(lattice);
+
+        if (new LLLReducer().reduceFloating(floating)) {
+          checkReduced(floating, "LLL с плавающей точкой " + n + "x" + n + ", " + bits + " бит");
+          checkSameLattice(lattice, floating,
+              "LLL с плавающей точкой " + n + "x" + n + ", " + bits + " бит");
+        }
+      }
+    }
+  }
+
+  /**
+   * Треугольная решетка с быстро растущей диагональю, как у решетки Коппесмита: записи под
+   * диагональю меньше диагонального элемента своего столбца.
+   *
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public static void test3() throws InterruptedException {
+    Random random = new Random(3);
+    int n = 30;
+    BigInteger[][] lattice = new BigInteger[n][n];
+
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        BigInteger diagonal = BigInteger.ONE.shiftLeft(40 * j + 1);
+        lattice[i][j] = j > i
+            ? BigInteger.ZERO
+            : j == i ? diagonal : new BigInteger(40 * j, random);
+      }
+    }
+
+    BigInteger[][] reduced = new LLLReducer().reduce(lattice);
+
+    checkReduced(reduced, "треугольная решетка");
+    checkSameLattice(lattice, reduced, "треугольная решетка");
+  }
+
+  /**
+   * Параллельный пересчет векторов и матрицы Грама для решеток размерности от 64 дает в точности
+   * тот же базис, что и последовательный.
+   *
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public static void test4() throws InterruptedException {
+    if (ForkJoinPool.getCommonPoolParallelism() < 2) {
+      throw new AssertionError("Общему пулу доступен один поток, параллельный путь не проверяется");
+    }
+
+    Random random = new Random(4);
+    BigDecimal delta = new BigDecimal("0.99");
+
+    for (int n : new int[]{64, 80}) {
+      BigInteger[][] lattice = randomLattice(random, n, 64);
+      BigInteger[][] parallel = copy(lattice);
+      BigInteger[][] sequential = copy(lattice);
+
+      if (!new LLLReducer(delta, true).reduceFloating(parallel)
+          || !new LLLReducer(delta, false).reduceFloating(sequential)) {
+        throw new AssertionError("Не хватило точности для решетки " + n + "x" + n);
+      }
+
+      if (!Arrays.deepEquals(parallel, sequential)) {
+        throw new AssertionError("Параллельный и последовательный базисы различаются, " + n);
+      }
+
+      checkReduced(parallel, "параллельный LLL " + n + "x" + n);
+    }
+
+    if (ForkJoinPool.commonPool().getPoolSize() == 0) {
+      throw new AssertionError("Параллельный пересчет не запускал задач в общем пуле");
+    }
+  }
+
+  private static BigInteger[][] randomLattice(Random random, int n, int bits) {
+    while (true) {
+      BigInteger[][] lattice = new BigInteger[n][n];
+
+      for (BigInteger[] row : lattice) {
+        for (int j = 0; j < n; j++) {
+          BigInteger value = new BigInteger(bits, random);
+          row[j] = random.nextBoolean() ? value : value.negate();
+        }
+      }
+
+      if (gramSchmidt(lattice) != null) {
+        return lattice;
+      }
+    }
+  }
+
+  /**
+   * Проверка условий LLL с delta = 0.99 и eta = 0.51 в точной арифметике.
+   */
+  private static void checkReduced(BigInteger[][] b, String name) {
+    BigInteger[][] lambda = gramSchmidt(b);
+
+    if (lambda == null) {
+      throw new AssertionError(name + ": векторы линейно зависимы");
+    }
+
+    for (int i = 0; i < b.length; i++) {
+      for (int j = 0; j < i; j++) {
+        // |mu_ij| = |lambda_ij| / d_j <= 0.51
+        if (lambda[i][j].abs().multiply(BigInteger.valueOf(100))
+            .compareTo(lambda[j][j].multiply(BigInteger.valueOf(51))) > 0) {
+          throw new AssertionError(name + ": не выполнена размерная редукция в строке " + i);
+        }
+      }
+
+      if (i == 0) {
+        continue;
+      }
+
+      // 0.99 B_(i-1) <= B_i + mu^2 B_(i-1), где B_i = d_i / d_(i-1),
+      // после умножения на d_(i-1) d_(i-2).
+      BigInteger previous = lambda[i - 1][i - 1];
+      BigInteger beforePrevious = i > 1 ? lambda[i - 2][i - 2] : BigInteger.ONE;
+      BigInteger left = previous.pow(2).multiply(BigInteger.valueOf(99));
+      BigInteger right = lambda[i][i].multiply(beforePrevious).add(lambda[i][i - 1].pow(2))
+          .multiply(BigInteger.valueOf(100));
+
+      if (left.compareTo(right) > 0) {
+        throw new AssertionError(name + ": не выполнено условие Ловаса в строке " + i);
+      }
+    }
+  }
+
+  /**
+   * Целочисленная ортогонализация Грама-Шмидта (Cohen, 2.6.7): на диагонали d_i, под диагональю
+   * lambda_ij = d_j mu_ij.
+   *
+   * @return матрица lambda или null, если векторы линейно зависимы
+   */
+  private static BigInteger[][] gramSchmidt(BigInteger[][] b) {
+    int n = b.length;
+    BigInteger[][] lambda = new BigInteger[n][n];
+
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j <= i; j++) {
+        BigInteger u = dot(b[i], b[j]);
+
+        for (int k = 0; k < j; k++) {
+          BigInteger previous = k == 0 ? BigInteger.ONE : lambda[k - 1][k - 1];
+          u = lambda[k][k].multiply(u).subtract(lambda[i][k].multiply(lambda[j][k]))
+              .divide(previous);
+        }
+
+        lambda[i][j] = u;
+      }
+
+      if (lambda[i][i].signum() == 0) {
+        return null;
+      }
+    }
+
+    return lambda;
+  }
+
+  /**
+   * Проверка, что квадратные базисы порождают одну решетку: определители совпадают по модулю, а
+   * каждый вектор второго базиса - целочисленная комбинация векторов первого.
+   */
+  private static void checkSameLattice(BigInteger[][] basis, BigInteger[][] other, String name) {
+    int n = basis.length;
+    BigInteger[][] lambda = gramSchmidt(basis);
+    BigInteger[][] otherLambda = gramSchmidt(other);
+
+    if (otherLambda == null || !lambda[n - 1][n - 1].equals(otherLambda[n - 1][n - 1])) {
+      throw new AssertionError(name + ": определитель решетки изменился");
+    }
+
+    // Решение c * basis = v методом Барейса для всех строк other сразу: [basis^T | other^T].
+    BigInteger[][] a = new BigInteger[n][2 * n];
+
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        a[i][j] = basis[j][i];
+        a[i][n + j] = other[j][i];
+      }
+    }
+
+    BigInteger previous = BigInteger.ONE;
+
+    for (int k = 0; k < n; k++) {
+      int pivot = k;
+
+      while (a[pivot][k].signum() == 0) {
+        pivot++;
+      }
+
+      BigInteger[] row = a[k];
+      a[k] = a[pivot];
+      a[pivot] = row;
+
+      for (int i = k + 1; i < n; i++) {
+        for (int j = k + 1; j < 2 * n; j++) {
+          a[i][j] = a[k][k].multiply(a[i][j]).subtract(a[i][k].multiply(a[k][j]))
+              .divide(previous);
+        }
+
+        a[i][k] = BigInteger.ZERO;
+      }
+
+      previous = a[k][k];
+    }
+
+    BigInteger det = a[n - 1][n - 1];
+
+    for (int column = n; column < 2 * n; column++) {
+      // По правилу Крамера det * c - целые, обратный ход без дробей.
+      BigInteger[] scaled = new BigInteger[n];
+
+      for (int i = n - 1; i >= 0; i--) {
+        BigInteger sum = det.multiply(a[i][column]);
+
+        for (int j = i + 1; j < n; j++) {
+          sum = sum.subtract(a[i][j].multiply(scaled[j]));
+        }
+
+        scaled[i] = sum.divide(a[i][i]);
+
+        if (scaled[i].mod(det.abs()).signum() != 0) {
+          throw new AssertionError(name + ": вектор " + (column - n) + " не лежит в решетке");
+        }
+      }
+    }
+  }
+
+  private static BigInteger[][] copy(BigInteger[][] matrix) {
+    BigInteger[][] result = new BigInteger[matrix.length][];
+
+    for (int i = 0; i < matrix.length; i++) {
+      result[i] = matrix[i].clone();
+    }
+
+    return result;
+  }
+
+  private static BigInteger dot(BigInteger[] a, BigInteger[] b) {
+    BigInteger result = BigInteger.ZERO;
+
+    for (int i = 0; i < a.length; i++) {
+      result = result.add(a[i].multiply(b[i]));
+    }
+
+    return result;
+  }
+}
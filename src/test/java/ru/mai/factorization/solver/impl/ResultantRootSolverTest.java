@@ -0,0 +1,240 @@
+package ru.mai.factorization.solver.impl;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import ru.mai.factorization.monomial.Monomial;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+import ru.mai.factorization.utils.Polynomial;
+
+public class ResultantRootSolverTest {
+
+  public static void main(String[] args) throws InterruptedException {
+    test1();
+    test2();
+    test3();
+    System.out.println("ResultantRootSolverTest: OK");
+  }
+
+  /**
+   * Результант, посчитанный алгоритмом Барейса над Z[y], совпадает в целых точках y с
+   * определителем матрицы Сильвестра, раскрытым по строкам.
+   */
+  public static void test1() {
+    Random random = new Random(1);
+
+    for (int test = 0; test < 200; test++) {
+      BigInteger[][] f = randomBivariate(random, 1 + random.nextInt(4), random.nextInt(4));
+      BigInteger[][] g = randomBivariate(random, 1 + random.nextInt(4), random.nextInt(4));
+      BigInteger[] resultant = ResultantRootSolver.resultant(copy(f), copy(g));
+
+      for (int point = -5; point <= 5; point++) {
+        BigInteger y = BigInteger.valueOf(point);
+        BigInteger expected = cofactorDeterminant(sylvester(evaluate(f, y), evaluate(g, y)));
+
+        if (!Polynomial.evaluate(resultant, y).equals(expected)) {
+          throw new AssertionError("Результант не совпал с определителем Сильвестра, тест "
+              + test + ", y = " + y);
+        }
+      }
+    }
+  }
+
+  /**
+   * Целые корни, найденные подъемом Гензеля, совпадают с корнями, из которых построен полином.
+   */
+  public static void test2() {
+    BigInteger big = new BigInteger("12345678901234567");
+    BigInteger[] irreducible = {BigInteger.ONE, BigInteger.ZERO, BigInteger.valueOf(3)};
+
+    checkRoots(List.of(BigInteger.valueOf(3), BigInteger.valueOf(-7), big), irreducible,
+        BigInteger.valueOf(5));
+    checkRoots(List.of(big, big.negate()), irreducible, BigInteger.ONE);
+    checkRoots(List.of(BigInteger.valueOf(4), BigInteger.valueOf(4), BigInteger.valueOf(4)),
+        irreducible, BigInteger.ONE);
+    checkRoots(List.of(BigInteger.ZERO, BigInteger.ZERO, BigInteger.valueOf(-9)),
+        new BigInteger[]{BigInteger.ONE}, BigInteger.ONE);
+    checkRoots(List.of(BigInteger.valueOf(2), BigInteger.valueOf(2), BigInteger.valueOf(5)),
+        new BigInteger[]{BigInteger.ONE}, BigInteger.ONE);
+    checkRoots(List.of(), irreducible, BigInteger.valueOf(7));
+  }
+
+  /**
+   * Поиск находит общий корень y0 полиномов, обращающихся в ноль в (x0, y0, x0 y0^r).
+   *
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public static void test3() throws InterruptedException {
+    Random random = new Random(3);
+    BigInteger x0 = new BigInteger("60864");
+    BigInteger y0 = new BigInteger("1360935721901674");
+
+    for (int r = 1; r <= 2; r++) {
+      BigInteger z0 = x0.multiply(y0.pow(r));
+      MultivariatePolynomial gx = linear(new Monomial(1, 0, 0), x0);
+      MultivariatePolynomial gy = linear(new Monomial(0, 1, 0), y0);
+      MultivariatePolynomial gz = linear(new Monomial(0, 0, 1), z0);
+      List<MultivariatePolynomial> polys = new ArrayList<>();
+
+      for (int i = 0; i < 3; i++) {
+        polys.add(sum(
+            gx.multiply(randomPolynomial(random)),
+            gy.multiply(randomPolynomial(random)),
+            gz.multiply(randomPolynomial(random))
+        ));
+      }
+
+      BigInteger y = new ResultantRootSolver().solve(polys, r);
+
+      if (!y0.equals(y)) {
+        throw new AssertionError("Ожидался корень y = " + y0 + ", найден " + y + ", r = " + r);
+      }
+
+      if (!ResultantRootSolver.isCommonRoot(polys, r, y0)
+          || ResultantRootSolver.isCommonRoot(polys, r, y0.add(BigInteger.ONE))) {
+        throw new AssertionError("Неверная проверка общего корня, r = " + r);
+      }
+    }
+  }
+
+  private static void checkRoots(List<BigInteger> roots, BigInteger[] cofactor,
+      BigInteger leading) {
+    BigInteger[] poly = Polynomial.multiply(new BigInteger[]{leading}, cofactor);
+
+    for (BigInteger root : roots) {
+      poly = Polynomial.multiply(poly, new BigInteger[]{BigInteger.ONE, root.negate()});
+    }
+
+    Set<BigInteger> found = new HashSet<>(ResultantRootSolver.integerRoots(poly));
+
+    if (!found.equals(new HashSet<>(roots))) {
+      throw new AssertionError("Корни " + roots + ", найдены " + found);
+    }
+  }
+
+  private static MultivariatePolynomial linear(Monomial monomial, BigInteger root) {
+    MultivariatePolynomial poly = new MultivariatePolynomial();
+    poly.addTerm(BigInteger.ONE, monomial);
+    poly.addTerm(root.negate(), new Monomial(0, 0, 0));
+    return poly;
+  }
+
+  private static MultivariatePolynomial sum(MultivariatePolynomial... polys) {
+    MultivariatePolynomial result = new MultivariatePolynomial();
+
+    for (MultivariatePolynomial poly : polys) {
+      poly.getTerms().forEach(result::addToCoeff);
+    }
+
+    return result;
+  }
+
+  private static MultivariatePolynomial randomPolynomial(Random random) {
+    MultivariatePolynomial poly = new MultivariatePolynomial();
+
+    for (int i = 0; i < 4; i++) {
+      Monomial m = new Monomial(random.nextInt(3), random.nextInt(3), random.nextInt(2));
+      poly.addToCoeff(m, BigInteger.valueOf(random.nextInt(201) - 100));
+    }
+
+    return poly;
+  }
+
+  private static BigInteger[][] randomBivariate(Random random, int xDegree, int yDegree) {
+    BigInteger[][] poly = new BigInteger[xDegree + 1][];
+
+    for (int i = 0; i <= xDegree; i++) {
+      poly[i] = new BigInteger[yDegree + 1];
+
+      for (int j = 0; j <= yDegree; j++) {
+        poly[i][j] = BigInteger.valueOf(random.nextInt(21) - 10);
+      }
+
+      poly[i] = Polynomial.trim(poly[i]);
+    }
+
+    if (Polynomial.isZero(poly[0])) {
+      poly[0] = new BigInteger[]{BigInteger.ONE};
+    }
+
+    return poly;
+  }
+
+  /**
+   * Значения коэффициентов при степенях x в точке y; формальная степень по x сохраняется, даже если
+   * старший коэффициент обращается в ноль.
+   */
+  private static BigInteger[] evaluate(BigInteger[][] poly, BigInteger y) {
+    return Arrays.stream(poly).map(coeff -> Polynomial.evaluate(coeff, y))
+        .toArray(BigInteger[]::new);
+  }
+
+  private static BigInteger[][] sylvester(BigInteger[] f, BigInteger[] g) {
+    int a = f.length - 1;
+    int b = g.length - 1;
+
+    if (a == 0) {
+      return new BigInteger[][]{{f[0].pow(b)}};
+    }
+
+    if (b == 0) {
+      return new BigInteger[][]{{g[0].pow(a)}};
+    }
+
+    BigInteger[][] matrix = new BigInteger[a + b][a + b];
+
+    for (BigInteger[] row : matrix) {
+      Arrays.fill(row, BigInteger.ZERO);
+    }
+
+    for (int i = 0; i < b; i++) {
+      System.arraycopy(f, 0, matrix[i], i, a + 1);
+    }
+
+    for (int i = 0; i < a; i++) {
+      System.arraycopy(g, 0, matrix[b + i], i, b + 1);
+    }
+
+    return matrix;
+  }
+
+  private static BigInteger cofactorDeterminant(BigInteger[][] matrix) {
+    return cofactorDeterminant(matrix, 0, new boolean[matrix.length]);
+  }
+
+  private static BigInteger cofactorDeterminant(BigInteger[][] matrix, int row, boolean[] used) {
+    if (row == matrix.length) {
+      return BigInteger.ONE;
+    }
+
+    BigInteger result = BigInteger.ZERO;
+    int sign = 1;
+
+    for (int column = 0; column < matrix.length; column++) {
+      if (used[column]) {
+        continue;
+      }
+
+      // Знак определяется позицией столбца среди еще не вычеркнутых.
+      if (matrix[row][column].signum() != 0) {
+        used[column] = true;
+        BigInteger minor = cofactorDeterminant(matrix, row + 1, used);
+        used[column] = false;
+        BigInteger term = matrix[row][column].multiply(minor);
+        result = sign > 0 ? result.add(term) : result.subtract(term);
+      }
+
+      sign = -sign;
+    }
+
+    return result;
+  }
+
+  private static BigInteger[][] copy(BigInteger[][] poly) {
+    return Arrays.stream(poly).map(BigInteger[]::clone).toArray(BigInteger[][]::new);
+  }
+}
@@ -0,0 +1,87 @@
+package ru.mai.factorization.solver.impl;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import ru.mai.factorization.monomial.Monomial;
+import ru.mai.factorization.polynomial.MultivariatePolynomial;
+import ru.mai.factorization.solver.RootSolver;
+
+public class SubsetRootSolverTest {
+
+  private static final BigInteger P = new BigInteger("683209007134751");
+  private static final BigInteger Q = new BigInteger("677726714766923");
+  private static final BigInteger N = P.multiply(Q);
+  private static final BigInteger SUM = P.add(Q);
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    test1();
+    test2();
+    System.out.println("SubsetRootSolverTest: OK");
+  }
+
+  /**
+   * Общий корень y, не дающий делителей N, отвергается, и поиск продолжается по остальным
+   * подмножествам до y = p + q. Без N принимается первый общий корень.
+   *
+   * @throws IOException          исключение при работе с внешними утилитами
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public static void test1() throws IOException, InterruptedException {
+    BigInteger spurious = SUM.add(BigInteger.TWO);
+    List<MultivariatePolynomial> polys = roots(4, spurious, SUM);
+    MultivariatePolynomial shortest = polys.get(0);
+    RootSolver stub = (subset, r) -> subset.stream().anyMatch(poly -> poly == shortest)
+        ? spurious
+        : SUM;
+    SubsetRootSolver solver = new SubsetRootSolver(stub, 4, 3, 2);
+
+    check(SUM.equals(solver.solve(polys, 1, N)), "с проверкой N найден не y = p + q");
+    check(spurious.equals(solver.solve(polys, 1)), "без N найден не первый общий корень");
+  }
+
+  /**
+   * Если ни одно подмножество не дает делителей N, в том числе тривиальных 1 и N, корень не
+   * найден.
+   *
+   * @throws IOException          исключение при работе с внешними утилитами
+   * @throws InterruptedException исключение, если поток прерван
+   */
+  public static void test2() throws IOException, InterruptedException {
+    BigInteger trivial = N.add(BigInteger.ONE);
+    BigInteger small = BigInteger.TEN;
+    List<MultivariatePolynomial> polys = roots(4, trivial, small);
+    MultivariatePolynomial shortest = polys.get(0);
+    RootSolver stub = (subset, r) -> subset.stream().anyMatch(poly -> poly == shortest)
+        ? trivial
+        : small;
+
+    check(new SubsetRootSolver(stub, 4, 3, 2).solve(polys, 1, N) == null,
+        "принят корень, не дающий нетривиальных делителей");
+  }
+
+  /**
+   * Полиномы c (y - a)(y - b) с возрастающими по норме множителями c = 1, 2, ...
+   */
+  private static List<MultivariatePolynomial> roots(int count, BigInteger a, BigInteger b) {
+    List<MultivariatePolynomial> polys = new ArrayList<>();
+
+    for (int i = 1; i <= count; i++) {
+      BigInteger c = BigInteger.valueOf(i);
+      MultivariatePolynomial poly = new MultivariatePolynomial();
+      poly.addTerm(c, new Monomial(0, 2, 0));
+      poly.addTerm(c.multiply(a.add(b)).negate(), new Monomial(0, 1, 0));
+      poly.addTerm(c.multiply(a.multiply(b)), new Monomial(0, 0, 0));
+      polys.add(poly);
+    }
+
+    return polys;
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package ru.mai.factorization.utils;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FlatJsonTest {
+
+  public static void main(String[] args) {
+    test1();
+    test2();
+    test3();
+    System.out.println("FlatJsonTest: OK");
+  }
+
+  /**
+   * Записанный объект разбирается обратно в те же поля и в том же порядке: числа без потери
+   * точности, строки со спецсимволами, true/false и null.
+   */
+  public static void test1() {
+    Map<String, Object> fields = new LinkedHashMap<>();
+    fields.put("N", new BigInteger("463028995904606051817018641173").pow(10));
+    fields.put("negative", -65537);
+    fields.put("double", 1.5e-7);
+    fields.put("flag", true);
+    fields.put("missing", null);
+    fields.put("text", "кавычка \" и слэш \\ / перевод\nстроки\tтаб\r\b\f\u0001 конец");
+    fields.put("", "");
+    fields.put("ключ \"с\" кавычками", "значение");
+
+    Map<String, String> parsed = FlatJson.parse(FlatJson.write(fields));
+    Map<String, String> expected = new LinkedHashMap<>();
+    fields.forEach((key, value) -> expected.put(key, value == null ? null : value.toString()));
+
+    if (!parsed.equals(expected) || !List.copyOf(parsed.keySet()).equals(
+        List.copyOf(expected.keySet()))) {
+      throw new AssertionError("Поля не совпали после записи и разбора: " + parsed);
+    }
+
+    if (!FlatJson.parse(FlatJson.write(Map.of())).isEmpty()) {
+      throw new AssertionError("Пустой объект разобран с полями");
+    }
+  }
+
+  /**
+   * Разбор объектов, записанных не этим классом: пробелы, escape-последовательности \\uXXXX
+   * и экранированный слэш.
+   */
+  public static void test2() {
+    Map<String, String> parsed = FlatJson.parse(
+        " {\n  \"id\" : 17 ,\t\"name\":\"\\u0041\\u0431\\/c\", \"ok\": false, \"p\" : null }\n");
+    Map<String, String> expected = new LinkedHashMap<>();
+    expected.put("id", "17");
+    expected.put("name", "Aб/c");
+    expected.put("ok", "false");
+    expected.put("p", null);
+
+    if (!parsed.equals(expected)) {
+      throw new AssertionError("Неверный разбор: " + parsed);
+    }
+
+    if (!FlatJson.parse("{ }").isEmpty()) {
+      throw new AssertionError("Пустой объект разобран с полями");
+    }
+  }
+
+  /**
+   * Вложенные объекты, массивы и некорректный JSON отклоняются IllegalArgumentException.
+   */
+  public static void test3() {
+    List<String> invalid = List.of(
+        "",
+        "   ",
+        "[]",
+        "{\"a\":{\"b\":1}}",
+        "{\"a\":{}}",
+        "{\"a\":[1,2]}",
+        "{\"a\":[]}",
+        "{\"a\":}",
+        "{\"a\" 1}",
+        "{\"a\":1",
+        "{\"a\":1,}",
+        "{\"a\":1} x",
+        "{a:1}",
+        "{\"a\":\"незакрытая}",
+        "{\"a\":\"\\u12\"}",
+        "{\"a\":\"\\uzzzz\"}"
+    );
+
+    for (String json : invalid) {
+      try {
+        Map<String, String> parsed = FlatJson.parse(json);
+        throw new AssertionError("Принят некорректный JSON " + json + ": " + parsed);
+      } catch (IllegalArgumentException expected) {
+        // ожидаемое исключение
+      }
+    }
+  }
+}
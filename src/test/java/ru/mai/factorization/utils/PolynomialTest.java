@@ -0,0 +1,89 @@
+package ru.mai.factorization.utils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class PolynomialTest {
+
+  public static void main(String[] args) {
+    test1();
+    System.out.println("PolynomialTest: OK");
+  }
+
+  /**
+   * Кэшированные phi(n, N) совпадают с вычисленными заново по рекуррентной формуле и в точке
+   * y = p + q равны (p^n - 1)(q^n - 1) / ((p - 1)(q - 1)) при любом порядке вызовов, после
+   * вытеснения модуля из кэша и после изменения возвращенного массива.
+   */
+  public static void test1() {
+    Random random = new Random(4);
+    List<int[]> calls = new ArrayList<>();
+
+    // Модулей больше, чем помещается в кэш, и каждый запрашивается несколько раз вразнобой.
+    for (int modulus = 0; modulus < 80; modulus++) {
+      for (int n = 1; n <= 12; n += 1 + random.nextInt(3)) {
+        calls.add(new int[]{modulus, n});
+        calls.add(new int[]{modulus, 1 + random.nextInt(n)});
+      }
+    }
+
+    Collections.shuffle(calls, random);
+
+    BigInteger[][] factors = new BigInteger[80][];
+
+    for (int i = 0; i < factors.length; i++) {
+      factors[i] = new BigInteger[]{
+          BigInteger.probablePrime(20 + random.nextInt(40), random),
+          BigInteger.probablePrime(20 + random.nextInt(40), random)};
+    }
+
+    for (int[] call : calls) {
+      BigInteger p = factors[call[0]][0];
+      BigInteger q = factors[call[0]][1];
+      BigInteger N = p.multiply(q);
+      int n = call[1];
+      BigInteger[] phi = Polynomial.phi(n, N);
+
+      if (!Arrays.equals(phi, direct(n, N))) {
+        throw new AssertionError("phi(" + n + ", " + N + ") не совпал с вычисленным заново");
+      }
+
+      BigInteger expected = p.pow(n).subtract(BigInteger.ONE)
+          .multiply(q.pow(n).subtract(BigInteger.ONE))
+          .divide(p.subtract(BigInteger.ONE).multiply(q.subtract(BigInteger.ONE)));
+
+      if (!Polynomial.evaluate(phi, p.add(q)).equals(expected)) {
+        throw new AssertionError("phi(" + n + ", " + N + ") в точке p + q неверен");
+      }
+
+      Arrays.fill(phi, BigInteger.ZERO);
+    }
+  }
+
+  /**
+   * phi(n, N) по рекуррентной формуле без кэша.
+   */
+  private static BigInteger[] direct(int n, BigInteger N) {
+    BigInteger[] previous = {BigInteger.ONE};
+    BigInteger[] current = {BigInteger.ONE, N.add(BigInteger.ONE)};
+
+    if (n == 1) {
+      return previous;
+    }
+
+    for (int k = 3; k <= n; k++) {
+      BigInteger[] next = Polynomial.subtract(
+          Polynomial.multiply(new BigInteger[]{BigInteger.ONE, BigInteger.ZERO}, current),
+          Polynomial.multiply(N, previous));
+      next[next.length - 1] = next[next.length - 1].add(N.pow(k - 1)).add(BigInteger.ONE);
+      previous = current;
+      current = next;
+    }
+
+    return current;
+  }
+}
@@ -0,0 +1,142 @@
+package ru.mai.factorization.worker.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Проверка пула на заглушке scripts/stand_in_worker.sh. Тест запускается из корня проекта.
+ */
+public class WorkerPoolTest {
+
+  public static void main(String[] args) throws Exception {
+    test1();
+    test2();
+    test3();
+    System.out.println("WorkerPoolTest: OK");
+  }
+
+  /**
+   * Ошибка задачи (FAIL) передается исключением, а процесс продолжает работу и не
+   * перезапускается.
+   *
+   * @throws Exception исключение при работе с процессами
+   */
+  public static void test1() throws Exception {
+    Path log = Files.createTempFile("worker-pool", ".log");
+
+    try (WorkerPool pool = new WorkerPool(command(log), 1)) {
+      check(pool.call("a\nb"), List.of("a", "b"), "эхо");
+
+      try {
+        pool.call("FAIL");
+        throw new AssertionError("Ошибка задачи не передана");
+      } catch (RuntimeException expected) {
+        if (!expected.getMessage().contains("заглушка вернула ошибку")) {
+          throw new AssertionError("Неверная ошибка: " + expected.getMessage());
+        }
+      }
+
+      check(pool.call("c"), List.of("c"), "эхо после ошибки");
+      checkStarted(log, 1);
+    } finally {
+      Files.delete(log);
+    }
+  }
+
+  /**
+   * Упавший процесс (CRASH) заменяется новым, и задача повторяется на нем ровно один раз; после
+   * повторного падения ошибка передается вызывающему, а пул продолжает работать.
+   *
+   * @throws Exception исключение при работе с процессами
+   */
+  public static void test2() throws Exception {
+    Path log = Files.createTempFile("worker-pool", ".log");
+
+    try (WorkerPool pool = new WorkerPool(command(log), 1)) {
+      check(pool.call("a"), List.of("a"), "эхо");
+
+      try {
+        pool.call("CRASH");
+        throw new AssertionError("Падение процесса не передано");
+      } catch (IOException expected) {
+        // Задача падает и на новом процессе.
+      }
+
+      checkStarted(log, 2);
+      check(pool.call("b"), List.of("b"), "эхо после падения");
+      checkStarted(log, 3);
+    } finally {
+      Files.delete(log);
+    }
+  }
+
+  /**
+   * Прерывание потока, ожидающего ответа, закрывает процесс, а пул запускает вместо него новый и
+   * остается работоспособным.
+   *
+   * @throws Exception исключение при работе с процессами
+   */
+  public static void test3() throws Exception {
+    Path log = Files.createTempFile("worker-pool", ".log");
+
+    try (WorkerPool pool = new WorkerPool(command(log), 1)) {
+      AtomicReference<Throwable> thrown = new AtomicReference<>();
+      Thread caller = new Thread(() -> {
+        try {
+          pool.call("SLEEP");
+        } catch (Throwable ex) {
+          thrown.set(ex);
+        }
+      });
+
+      caller.start();
+
+      while (Files.readAllLines(log).isEmpty()) {
+        Thread.sleep(10);
+      }
+
+      Thread.sleep(200);
+      caller.interrupt();
+      caller.join(5_000);
+
+      if (caller.isAlive() || !(thrown.get() instanceof InterruptedException)) {
+        throw new AssertionError("Прерывание не остановило задачу: " + thrown.get());
+      }
+
+      long begin = System.nanoTime();
+      check(pool.call("c"), List.of("c"), "эхо после прерывания");
+
+      if (System.nanoTime() - begin > 10_000_000_000L) {
+        throw new AssertionError("Пул ждал прерванный процесс");
+      }
+
+      checkStarted(log, 2);
+    } finally {
+      Files.delete(log);
+    }
+  }
+
+  /**
+   * Команда запуска заглушки, которая перед запуском дописывает строку в журнал.
+   */
+  private static List<String> command(Path log) {
+    return List.of("sh", "-c", "echo started >> '" + log + "'; exec sh scripts/stand_in_worker.sh");
+  }
+
+  private static void checkStarted(Path log, int expected) throws IOException {
+    int started = Files.readAllLines(log).size();
+
+    if (started != expected) {
+      throw new AssertionError("Запущено процессов: " + started + ", ожидалось " + expected);
+    }
+  }
+
+  private static void check(List<String> actual, List<String> expected, String name) {
+    if (!actual.equals(expected)) {
+      throw new AssertionError(name + ": ответ " + actual + ", ожидался " + expected);
+    }
+  }
+}